@@ -0,0 +1,109 @@
+package Benchmarks;
+
+import Entity.Entry;
+import Entity.Header;
+import Entity.QueryParam;
+import Entity.Request;
+import Services.Dependencies.AtomicDependencyValidator;
+import Services.Dependencies.LCS;
+import Services.Dependencies.StemTable;
+import Services.ResponseAnalyzer.AtomicObject;
+import Services.ResponseAnalyzer.ResponseIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of the candidate dependencies of a HAR: every header and query parameter value of
+ * a request compared with the response values equal to it, and the name similarity computed by
+ * {@link LCS} on the same pairs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AtomicDependencyValidatorBenchmark {
+
+    /** "cold" empties the stem and similarity caches before each invocation */
+    @Param({"cold", "warm"})
+    public String caches;
+
+    private static class Candidate {
+        final ResponseIndex.Occurrence occurrence;
+        final String to_value;
+        final String to_name;
+        final Request from;
+
+        Candidate(ResponseIndex.Occurrence occurrence, String to_value, String to_name, Request from) {
+            this.occurrence = occurrence;
+            this.to_value = to_value;
+            this.to_name = to_name;
+            this.from = from;
+        }
+    }
+
+    private final AtomicDependencyValidator atomicDependencyValidator = new AtomicDependencyValidator();
+    private final List<Candidate> candidates = new ArrayList<>();
+    private char[][] to_names;
+    private char[][] from_names;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticHar har) {
+        ResponseIndex responseIndex = har.extractDependencies.getResponseIndex();
+        Entry[] entries = har.getEntries();
+        for (int i = 1; i < entries.length; i++) {
+            Request request = entries[i].getRequest();
+            for (Header header : request.getHeaders()) {
+                addCandidates(responseIndex, entries, header.getValue(), header.getName(), i);
+            }
+            for (QueryParam queryParam : request.getQueryParams()) {
+                addCandidates(responseIndex, entries, queryParam.getValue(), queryParam.getName(), i);
+            }
+        }
+        to_names = new char[candidates.size()][];
+        from_names = new char[candidates.size()][];
+        for (int c = 0; c < candidates.size(); c++) {
+            to_names[c] = candidates.get(c).to_name.toLowerCase().toCharArray();
+            from_names[c] = candidates.get(c).occurrence.atomicObject.getName().toLowerCase().toCharArray();
+        }
+    }
+
+    private void addCandidates(ResponseIndex responseIndex, Entry[] entries, String value, String name, int req_index) {
+        // a bearer token is compared without its prefix, as by the header checker
+        String to_value = value.startsWith("Bearer ") ? value.substring("Bearer ".length()) : value;
+        for (ResponseIndex.Occurrence occurrence : responseIndex.lookup(to_value, 0, req_index)) {
+            candidates.add(new Candidate(occurrence, to_value, name, entries[occurrence.response_index].getRequest()));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCaches() {
+        if (caches.equals("cold")) {
+            AtomicDependencyValidator.getStemCache().clear();
+            AtomicDependencyValidator.getLowerCaseCache().clear();
+            AtomicDependencyValidator.getSimilarityCache().clear();
+            StemTable.clear();
+        }
+    }
+
+    @Benchmark
+    public void general_atomic_comparioson(Blackhole blackhole) {
+        for (Candidate candidate : candidates) {
+            AtomicObject atomicObject = candidate.occurrence.atomicObject;
+            blackhole.consume(atomicDependencyValidator.general_atomic_comparioson(
+                    atomicObject, candidate.to_value, candidate.to_name, candidate.occurrence.father, candidate.from));
+        }
+    }
+
+    @Benchmark
+    public void LCSubStr(Blackhole blackhole) {
+        for (int c = 0; c < to_names.length; c++) {
+            blackhole.consume(LCS.LCSubStr(to_names[c], from_names[c], to_names[c].length, from_names[c].length));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package Benchmarks;
+
+import Entity.DependencyGraph;
+import Entity.Entry;
+import Entity.MyNode;
+import Services.Dependencies.*;
+import Services.ResponseAnalyzer.ResponseIndex;
+import Services.ResponseAnalyzer.JsonSchemaGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single dependency checker run for every request of a HAR, as done by
+ * {@link ExtractDependencies#build_dependencies_graph()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DependencyCheckBenchmark {
+
+    @Param({"url", "header", "query", "body", "cookie"})
+    public String check;
+
+    private ResponseIndex responseIndex;
+    private DependencyGraph dependencyGraph;
+    private MyNode[] to_nodes;
+    private int[] first_index_responses;
+    private Set<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticHar har) {
+        responseIndex = har.extractDependencies.getResponseIndex();
+        Entry[] entries = har.getEntries();
+        dependencyGraph = new DependencyGraph();
+        to_nodes = new MyNode[entries.length];
+        first_index_responses = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            to_nodes[i] = dependencyGraph.addRequestoToGraph(entries[i].getRequest(), i);
+            // the response following the previous occurrence of the request, as in ExtractDependencies
+            int occurrence = to_nodes[i].getIndexs().indexOf(i);
+            first_index_responses[i] = occurrence == 0 ? 0 : to_nodes[i].getIndexs().get(occurrence - 1) + 1;
+        }
+        names = StemTable.names(entries, responseIndex.getResponses());
+    }
+
+    @Setup(Level.Iteration)
+    public void clearCaches() {
+        AtomicDependencyValidator.getStemCache().clear();
+        AtomicDependencyValidator.getLowerCaseCache().clear();
+        AtomicDependencyValidator.getSimilarityCache().clear();
+        JsonSchemaGenerator.clearCache();
+        // the names of the HAR are stemmed before the checks, as in ExtractDependencies
+        StemTable.clear();
+        StemTable.stemAll(names);
+    }
+
+    @Benchmark
+    public int dependencyCheck() throws IOException {
+        DependencyGraph buffer = dependencyGraph.edgeBuffer();
+        for (int i = 1; i < to_nodes.length; i++) {
+            MyNode to = to_nodes[i];
+            switch (check) {
+                case "url":
+                    UrlDependency.check_url_dependencies(responseIndex, i, buffer, to, first_index_responses[i]);
+                    break;
+                case "header":
+                    HeaderDependency.check_header_dependency(responseIndex, i, buffer, to, first_index_responses[i]);
+                    break;
+                case "query":
+                    QueryParameterDependency.check_queryParams_dependency(responseIndex, i, buffer, to, first_index_responses[i]);
+                    break;
+                case "body":
+                    if (to.getRequest().getPostData() != null && (to.getRequest().getMethod().equals("POST") || to.getRequest().getMethod().equals("PUT")))
+                        BodyDependency.check_body_dependency(responseIndex, i, buffer, to, first_index_responses[i]);
+                    break;
+                default:
+                    CookieDependency.check_cookie_dependency(responseIndex, i, buffer, to, first_index_responses[i]);
+            }
+        }
+        return buffer.edges.size();
+    }
+}
@@ -0,0 +1,35 @@
+package Benchmarks;
+
+import Entity.DependencyGraph;
+import Entity.Entry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration of the requests of a HAR as the nodes of a dependency graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DependencyGraphBenchmark {
+
+    private Entry[] entries;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticHar har) {
+        entries = har.getEntries();
+    }
+
+    @Benchmark
+    public DependencyGraph addRequestoToGraph() {
+        DependencyGraph dependencyGraph = new DependencyGraph();
+        for (int i = 0; i < entries.length; i++) {
+            dependencyGraph.addRequestoToGraph(entries[i].getRequest(), i);
+        }
+        return dependencyGraph;
+    }
+}
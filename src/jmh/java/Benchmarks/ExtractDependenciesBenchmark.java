@@ -0,0 +1,49 @@
+package Benchmarks;
+
+import Entity.DependencyGraph;
+import Services.Dependencies.AtomicDependencyValidator;
+import Services.Dependencies.ExtractDependencies;
+import Services.Dependencies.StemTable;
+import Services.ResponseAnalyzer.JsonSchemaGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole dependency graph of a HAR, sequential and parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractDependenciesBenchmark {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ExtractDependencies extractDependencies;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticHar har) {
+        extractDependencies = har.extractDependencies;
+        extractDependencies.setParallelism(parallelism);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCaches() {
+        // every analysis starts with empty caches
+        AtomicDependencyValidator.getStemCache().clear();
+        AtomicDependencyValidator.getLowerCaseCache().clear();
+        AtomicDependencyValidator.getSimilarityCache().clear();
+        JsonSchemaGenerator.clearCache();
+        StemTable.clear();
+    }
+
+    @Benchmark
+    public DependencyGraph build_dependencies_graph() throws IOException {
+        return extractDependencies.build_dependencies_graph();
+    }
+}
@@ -0,0 +1,41 @@
+package Benchmarks;
+
+import Entity.Entry;
+import Services.ResponseAnalyzer.ResponseAnalyzer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flattening of every JSON response of a HAR.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseAnalyzerBenchmark {
+
+    private final ResponseAnalyzer responseAnalyzer = new ResponseAnalyzer();
+    private List<String> bodies;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticHar har) {
+        bodies = new ArrayList<>();
+        for (Entry entry : har.getEntries()) {
+            if ("application/json".equals(entry.getResponse().getContent().getMimeType()))
+                bodies.add(entry.getResponse().getContent().getText());
+        }
+    }
+
+    @Benchmark
+    public void getUnstructuredResponse(Blackhole blackhole) {
+        for (String body : bodies) {
+            blackhole.consume(responseAnalyzer.getUnstructuredResponse(body));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package Benchmarks;
+
+import Entity.Entry;
+import Services.Dependencies.ExtractDependencies;
+import Services.Synthetic.SyntheticHarGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * HAR shared by the benchmarks of a trial: generated by {@link SyntheticHarGenerator}, read and
+ * with its responses already analyzed.
+ */
+@State(Scope.Benchmark)
+public class SyntheticHar {
+
+    @Param({"100", "1000", "10000"})
+    public int entries;
+
+    /** nesting depth of the response objects */
+    @Param({"2"})
+    public int depth;
+
+    /** fraction of response values shared by many responses */
+    @Param({"0.1"})
+    public double collisionRate;
+
+    public File file;
+    public ExtractDependencies extractDependencies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticHarGenerator generator = new SyntheticHarGenerator(42);
+        generator.setEntries(entries);
+        generator.setDepth(depth);
+        generator.setCollisionRate(collisionRate);
+        file = File.createTempFile("synthetic-" + entries + "-", ".har");
+        generator.write(file);
+        extractDependencies = new ExtractDependencies(file, true);
+        extractDependencies.analyze_responses();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    public Entry[] getEntries() {
+        return extractDependencies.getHar().getLog().getEntries();
+    }
+}
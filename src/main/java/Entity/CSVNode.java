@@ -2,6 +2,8 @@ package Entity;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.Objects;
+
 public class CSVNode extends MyNode {
 
     public boolean isIgnorefirstLine() {
@@ -72,4 +74,9 @@ public class CSVNode extends MyNode {
         return this.variablesName.equals(((CSVNode) o).variablesName) && this.filename.equals(((CSVNode) o).filename);
 
     }
+
+    @Override
+    public int hashCode(){
+        return Objects.hash(variablesName, filename);
+    }
 }
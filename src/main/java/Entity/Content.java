@@ -21,6 +21,10 @@ public class Content implements Serializable {
         return text;
     }
 
+    public void setText(String text) {
+        this.text = text;
+    }
+
     @SerializedName("size")
     Double size;
     @SerializedName("mimeType")
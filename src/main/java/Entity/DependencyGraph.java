@@ -37,18 +37,98 @@ public class DependencyGraph implements Serializable {
 
 
 
+    /*
+     * Node indexes: request -> first node with an equal request, HAR index -> last node containing it,
+     * "method url" -> first node with that url and method. They are not serialized and are rebuilt
+     * whenever the node list is replaced or resized outside addRequestoToGraph (setNodes, Gson, ...).
+     * Hits are validated against the node, so a node modified after indexing causes a rebuild; a
+     * node modified so that it matches a new lookup is only found after reindexNodes.
+     */
+    private transient Map<Request,MyNode> nodes_by_request;
+    private transient Map<String,MyNode> nodes_by_url_method;
+    private transient MyNode[] nodes_by_index;
+    private transient List<MyNode> indexed_nodes;
+    private transient int indexed_size;
+
+    private void ensureNodeIndexes(){
+        if(indexed_nodes != nodes || indexed_size != nodes.size())
+            reindexNodes();
+    }
+
+    /**
+     * Rebuilds the node lookup indexes. Needed only after a node already in the graph has been
+     * modified in a way that adds a match (e.g. new HAR indexes); other changes are detected.
+     */
+    public void reindexNodes(){
+        nodes_by_request = new HashMap<>();
+        nodes_by_url_method = new HashMap<>();
+        nodes_by_index = new MyNode[16];
+        for(MyNode node : nodes){
+            indexNode(node);
+        }
+        indexed_nodes = nodes;
+        indexed_size = nodes.size();
+    }
+
+    private void indexNode(MyNode node){
+        if(node.request != null) {
+            nodes_by_request.putIfAbsent(node.request, node);
+            nodes_by_url_method.putIfAbsent(urlMethodKey(node.request.getUrl(), node.request.getMethod()), node);
+        }
+        for(Integer index : node.indexs){
+            indexNodeByIndex(index, node);
+        }
+    }
+
+    private void indexNodeByIndex(int index, MyNode node){
+        if(index < 0)
+            return;
+        if(index >= nodes_by_index.length)
+            nodes_by_index = Arrays.copyOf(nodes_by_index, Math.max(index + 1, nodes_by_index.length * 2));
+        nodes_by_index[index] = node;
+    }
+
+    private static String urlMethodKey(String url, String method){
+        return method + " " + url;
+    }
+
+    /**
+     * Returns a graph sharing the nodes and the node indexes of this graph, with its own empty
+     * edge list. Used to collect edges from several threads; the nodes must not be modified
+     * while buffers are in use.
+     *
+     * @return the edge buffer
+     */
+    public DependencyGraph edgeBuffer(){
+        ensureNodeIndexes();
+        DependencyGraph buffer = new DependencyGraph();
+        buffer.nodes = nodes;
+        buffer.nodes_by_request = nodes_by_request;
+        buffer.nodes_by_url_method = nodes_by_url_method;
+        buffer.nodes_by_index = nodes_by_index;
+        buffer.indexed_nodes = indexed_nodes;
+        buffer.indexed_size = indexed_size;
+        return buffer;
+    }
+
     public MyNode addRequestoToGraph(Request request, int index)
     {
-        for(MyNode node : nodes)
-        {
-            if(node.request.equals(request)){
-                node.indexs.add(index);
-                return  node;
-            }
+        ensureNodeIndexes();
+        MyNode node = nodes_by_request.get(request);
+        if(node != null && !node.request.equals(request)){
+            reindexNodes();
+            node = nodes_by_request.get(request);
+        }
+        if(node != null){
+            node.indexs.add(index);
+            indexNodeByIndex(index, node);
+            return  node;
         }
-        MyNode node = new MyNode(request);
+        node = new MyNode(request);
         node.indexs.add(index);
         nodes.add(node);
+        indexNode(node);
+        indexed_size = nodes.size();
         return node;
     }
 
@@ -62,10 +142,12 @@ public class DependencyGraph implements Serializable {
     }
 
     public MyNode getNodeByIndex(int responseIndex) {
-        MyNode res = null;
-        for(MyNode node : nodes){
-            if(node.indexs.contains(responseIndex))
-                res = node;
+        ensureNodeIndexes();
+        MyNode res = responseIndex >= 0 && responseIndex < nodes_by_index.length ? nodes_by_index[responseIndex] : null;
+        // a miss on a current index is a miss: only a hit on a node modified since is rebuilt
+        if(res != null && !res.indexs.contains(responseIndex)){
+            reindexNodes();
+            res = responseIndex >= 0 && responseIndex < nodes_by_index.length ? nodes_by_index[responseIndex] : null;
         }
         return res;
     }
@@ -75,23 +157,10 @@ public class DependencyGraph implements Serializable {
         // Salvataggio della struttura dati su un file
         int dotIndex = file_har.getName().lastIndexOf('.');
         String file_name =  (dotIndex == -1) ? file_har.getName() : file_har.getName().substring(0, dotIndex);
-        Gson gson= new GsonBuilder()
-                .registerTypeAdapter(MyNode.class,new TypeFromNodeAdaptor())
-                .registerTypeAdapter(Edge.class, new TypeEdgeAdaptor())
-       //         .registerTypeAdapterFactory(new EdgeAdapterFactory())
-                .create();
-        String graph_json = gson.toJson(dependencyGraph);
-
-
-
-
         boolean res;
         try {
-            FileWriter file = new FileWriter(Paths.odp_path+"/"+file_name+".json");
-            file.write(graph_json);
-            file.flush();
-            file.close();
-            System.out.println("ODP correctly saved in the file named "+file_name+".json");
+            GraphBinaryFormat.write(dependencyGraph, new File(Paths.odp_path+"/"+file_name+GraphBinaryFormat.EXTENSION));
+            System.out.println("ODP correctly saved in the file named "+file_name+GraphBinaryFormat.EXTENSION);
             res=true;
         } catch (IOException e) {
             res=false;
@@ -100,7 +169,20 @@ public class DependencyGraph implements Serializable {
         return  res;
     }
 
+    // Returns the graph saved as path/name: the binary file if present, otherwise the JSON file of
+    // older versions. The returned file may not exist.
+    public static File getGraphFile(String path, String name){
+        File binary = new File(path+"/"+name+GraphBinaryFormat.EXTENSION);
+        if(binary.exists())
+            return binary;
+        File json = new File(path+"/"+name+".json");
+        return json.exists() ? json : binary;
+    }
+
     public static DependencyGraph parseGraphByFile(File file_json_odg) throws IOException {
+        // the format is detected from the content, JSON files are still accepted
+        if(GraphBinaryFormat.isBinary(file_json_odg))
+            return GraphBinaryFormat.read(file_json_odg);
         // Parsing della struttura dati da file
         Gson gson= new GsonBuilder()
                 .registerTypeAdapter(MyNode.class, new TypeFromNodeAdaptor())
@@ -113,9 +195,89 @@ public class DependencyGraph implements Serializable {
 
 
 
+    /*
+     * Edge indexes: request of the target node -> incoming edges, from_index -> outgoing edges, and
+     * the edges coming from CSV nodes, each in edge list order. Buckets are filtered with the node
+     * equality on lookup. Like the node indexes they are transient, kept up to date by addEdge and
+     * removeEdge, and rebuilt when the edge list is replaced or resized directly.
+     */
+    private transient Map<Request,List<Edge>> edges_in;
+    private transient Map<Integer,List<Edge>> edges_out;
+    private transient List<Edge> edges_from_csv;
+    private transient List<Edge> indexed_edges;
+    private transient int indexed_edges_size;
+
+    private void ensureEdgeIndexes(){
+        if(indexed_edges != edges || indexed_edges_size != edges.size())
+            reindexEdges();
+    }
+
+    /**
+     * Rebuilds the edge adjacency indexes. Needed only after an edge already in the graph has been
+     * given another source or target node; changes to the edge list itself are detected.
+     */
+    public void reindexEdges(){
+        edges_in = new HashMap<>();
+        edges_out = new HashMap<>();
+        edges_from_csv = new ArrayList<>();
+        for(Edge edge : edges){
+            indexEdge(edge);
+        }
+        indexed_edges = edges;
+        indexed_edges_size = edges.size();
+    }
+
+    private void indexEdge(Edge edge){
+        edges_in.computeIfAbsent(edge.to == null ? null : edge.to.request, k -> new ArrayList<>()).add(edge);
+        edges_out.computeIfAbsent(edge.from_index, k -> new ArrayList<>()).add(edge);
+        if(edge.from != null && edge.from.getClass().equals(CSVNode.class))
+            edges_from_csv.add(edge);
+    }
+
+    /**
+     * Adds an edge to the graph, updating the adjacency indexes.
+     *
+     * @param edge the edge to add
+     */
+    public void addEdge(Edge edge){
+        ensureEdgeIndexes();
+        edges.add(edge);
+        indexEdge(edge);
+        indexed_edges_size = edges.size();
+    }
+
+    /**
+     * Removes an edge from the graph, updating the adjacency indexes.
+     *
+     * @param edge the edge to remove
+     * @return true if the edge was in the graph
+     */
+    public boolean removeEdge(Edge edge){
+        ensureEdgeIndexes();
+        if(!edges.remove(edge))
+            return false;
+        removeByIdentity(edges_in.get(edge.to == null ? null : edge.to.request), edge);
+        removeByIdentity(edges_out.get(edge.from_index), edge);
+        removeByIdentity(edges_from_csv, edge);
+        indexed_edges_size = edges.size();
+        return true;
+    }
+
+    private static void removeByIdentity(List<Edge> bucket, Edge edge){
+        if(bucket == null)
+            return;
+        for(int i = 0; i < bucket.size(); i++){
+            if(bucket.get(i) == edge){
+                bucket.remove(i);
+                return;
+            }
+        }
+    }
+
     public List<Edge> getDependenciesByNode(MyNode to){
+        ensureEdgeIndexes();
         List<Edge> dependencies = new ArrayList<>();
-        for(Edge edge : this.edges){
+        for(Edge edge : edges_in.getOrDefault(to.request, Collections.emptyList())){
             if(edge.to.equals(to)){
                 dependencies.add(edge);
             }
@@ -125,27 +287,30 @@ public class DependencyGraph implements Serializable {
 
 
     public List<Object> getDependenciesToExtractToFromNode(MyNode from,int index){
+        ensureEdgeIndexes();
         List<Object> dependencies = new ArrayList<>();
+        // same membership test as dependencies.contains(...), without the linear scan
+        Set<Object> added = new HashSet<>();
         //int index_of_index = from.indexs.indexOf(index);
         //if(index_of_index>0)
         //        return dependencies;
 
-        for(Edge edge : this.edges){
-            if(edge.from != null && edge.from.equals(from) && edge.from_index==index){
-                if(!dependencies.contains(edge.dependency))
+        for(Edge edge : edges_out.getOrDefault(index, Collections.emptyList())){
+            if(edge.from != null && edge.from.equals(from)){
+                if(!added.contains(edge.dependency))
                 {
                     if(edge.type.equals("bodyjson")){
                         EdgeBodyJSON edgeBodyJSON = (EdgeBodyJSON) edge;
                         if(edgeBodyJSON.isPrimitive()){
                             if(!edgeBodyJSON.dependency.from_set_cookie)
-                                dependencies.add(edgeBodyJSON.dependency);
+                                addDependency(dependencies, added, edgeBodyJSON.dependency);
                         }else{
-                            dependencies.add(edgeBodyJSON.structuredObject);
+                            addDependency(dependencies, added, edgeBodyJSON.structuredObject);
                         }
                     }
                     else {
                         if(!edge.dependency.from_set_cookie)
-                            dependencies.add(edge.dependency);
+                            addDependency(dependencies, added, edge.dependency);
                     }
                 }
             }
@@ -153,22 +318,28 @@ public class DependencyGraph implements Serializable {
         return  dependencies;
     }
 
+    private static void addDependency(List<Object> dependencies, Set<Object> added, Object dependency){
+        dependencies.add(dependency);
+        added.add(dependency);
+    }
+
     public MyNode getNodeByUrlandMethod(String url, String method){
-        for(MyNode node : nodes){
-            if(node.request.getUrl().equals(url)&& node.request.getMethod().equals(method)){
-                return node;
-            }
+        ensureNodeIndexes();
+        MyNode node = nodes_by_url_method.get(urlMethodKey(url, method));
+        if(node != null && (!node.request.getUrl().equals(url) || !node.request.getMethod().equals(method))){
+            reindexNodes();
+            node = nodes_by_url_method.get(urlMethodKey(url, method));
         }
-        return  null;
+        return  node;
     }
 
     public List<CSVNode> getCSVNodeDependencies() {
+        ensureEdgeIndexes();
         List<CSVNode> results = new ArrayList<>();
-        for(Edge edge: this.edges){
-            if(edge.from != null && edge.from.getClass().equals(CSVNode.class)){
-                if(!results.contains(edge.from)){
-                    results.add((CSVNode) edge.from);
-                }
+        Set<MyNode> added = new HashSet<>();
+        for(Edge edge: edges_from_csv){
+            if(added.add(edge.from)){
+                results.add((CSVNode) edge.from);
             }
         }
         return results;
@@ -38,6 +38,8 @@ public class EdgeBodyJSON  extends Edge{
     }
 
     public void setStructuredObject(StructuredObject structuredObject) {
+        if(structuredObject != null)
+            structuredObject.materialize();
         this.structuredObject = structuredObject;
     }
 
@@ -54,6 +56,9 @@ public class EdgeBodyJSON  extends Edge{
         this.name=name;
         if(!primitive){
             //super(from.to,"bodyjson",null),
+            // the edge is saved with the graph: build the lazy value and schema now
+            if(s != null)
+                s.materialize();
             this.structuredObject=s;
         }
     }
@@ -65,6 +70,9 @@ public class EdgeBodyJSON  extends Edge{
         this.name=name;
         if(!primitive){
             //super(from.to,"bodyjson",null),
+            // the edge is saved with the graph: build the lazy value and schema now
+            if(s != null)
+                s.materialize();
             this.structuredObject=s;
         }
         this.from_index=index_from;
@@ -0,0 +1,595 @@
+package Entity;
+
+import Services.ResponseAnalyzer.AtomicObject;
+import Services.ResponseAnalyzer.StructuredObject;
+import com.google.gson.Gson;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntFunction;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary persistence format for {@link DependencyGraph}.
+ *
+ * <p>The JSON format repeats the full {@link Request} of both endpoints in every edge. In this
+ * format every distinct node is written once in a node table and edges reference nodes by id.
+ * All strings (urls, header names and values, post bodies, ...) are interned in a string table
+ * and referenced by id as well.
+ *
+ * <p>Layout, all numbers big endian, counts and ids as unsigned varints:
+ * <ul>
+ *     <li>header: magic {@code "ODPG"}, int version</li>
+ *     <li>node table: count, node records</li>
+ *     <li>edge list: count, edge records, in graph order</li>
+ *     <li>graph nodes: count, node ids of {@link DependencyGraph#nodes}</li>
+ *     <li>string table: count, for each string its UTF-8 length and bytes</li>
+ *     <li>offset index: for nodes, edges and strings an int count followed by the long
+ *     position of every record</li>
+ *     <li>trailer: long positions of the edge list, graph nodes, string table and offset index,
+ *     then the magic again</li>
+ * </ul>
+ * Records are streamed to disk while the strings are collected; the string table and the index
+ * follow them. Loading reads the trailer first, then the string table, then streams the
+ * records. The offset index allows single records to be decoded without reading the others.
+ */
+public class GraphBinaryFormat {
+
+    /**
+     * File name extension of graphs saved in this format.
+     */
+    public static final String EXTENSION = ".odg";
+
+    static final int MAGIC = 0x4F445047; // "ODPG"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 4 * 8 + 4;
+
+    static final byte NODE = 0;
+    static final byte CSV_NODE = 1;
+
+    static final byte EDGE = 0;
+    static final byte EDGE_URL = 1;
+    static final byte EDGE_HEADER = 2;
+    static final byte EDGE_QUERYPARAM = 3;
+    static final byte EDGE_COOKIE = 4;
+    static final byte EDGE_BODYUE = 5;
+    static final byte EDGE_BODYJSON = 6;
+
+    private static final Gson gson = new Gson();
+
+    /**
+     * Tells whether a file is a graph saved in this format, by looking at its first bytes.
+     *
+     * @param file the file to check
+     * @return true if the file starts with the format magic
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isBinary(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= HEADER_SIZE + TRAILER_SIZE && in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Writes a dependency graph to a file. The graph is written to a sibling {@code .tmp} file
+     * first, which then replaces the destination: a failed or interrupted write leaves the
+     * previous file intact.
+     *
+     * @param dependencyGraph the graph to write
+     * @param file destination file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(DependencyGraph dependencyGraph, File file) throws IOException {
+        Path temp = new File(file.getPath() + ".tmp").toPath();
+        try {
+            write(dependencyGraph, Files.newOutputStream(temp));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void write(DependencyGraph dependencyGraph, OutputStream os) throws IOException {
+        // node table: graph nodes and edge endpoints, equal values written once
+        Map<MyNode, Integer> node_ids = new IdentityHashMap<>();
+        Map<String, Integer> node_ids_by_value = new HashMap<>();
+        List<MyNode> node_table = new ArrayList<>();
+        for (MyNode node : dependencyGraph.nodes) {
+            registerNode(node, node_ids, node_ids_by_value, node_table);
+        }
+        for (Edge edge : dependencyGraph.edges) {
+            registerNode(edge.from, node_ids, node_ids_by_value, node_table);
+            registerNode(edge.to, node_ids, node_ids_by_value, node_table);
+        }
+
+        try (CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(os, 1 << 16));
+             DataOutputStream out = new DataOutputStream(counter)) {
+            Encoder encoder = new Encoder(out, new LinkedHashMap<>());
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            long[] node_offsets = new long[node_table.size()];
+            writeVarInt(out, node_table.size());
+            for (int i = 0; i < node_table.size(); i++) {
+                node_offsets[i] = counter.count;
+                encoder.writeNode(node_table.get(i));
+            }
+            long edges_pos = counter.count;
+            long[] edge_offsets = new long[dependencyGraph.edges.size()];
+            writeVarInt(out, dependencyGraph.edges.size());
+            for (int i = 0; i < dependencyGraph.edges.size(); i++) {
+                edge_offsets[i] = counter.count;
+                encoder.writeEdge(dependencyGraph.edges.get(i), node_ids);
+            }
+            long graph_pos = counter.count;
+            writeVarInt(out, dependencyGraph.nodes.size());
+            for (MyNode node : dependencyGraph.nodes) {
+                writeVarInt(out, node_ids.get(node));
+            }
+            long strings_pos = counter.count;
+            long[] string_offsets = new long[encoder.strings.size()];
+            writeVarInt(out, encoder.strings.size());
+            int i = 0;
+            for (String s : encoder.strings.keySet()) {
+                string_offsets[i++] = counter.count;
+                byte[] bytes = s.getBytes(UTF_8);
+                writeVarInt(out, bytes.length);
+                out.write(bytes);
+            }
+            long index_pos = counter.count;
+            writeOffsets(out, node_offsets);
+            writeOffsets(out, edge_offsets);
+            writeOffsets(out, string_offsets);
+
+            out.writeLong(edges_pos);
+            out.writeLong(graph_pos);
+            out.writeLong(strings_pos);
+            out.writeLong(index_pos);
+            out.writeInt(MAGIC);
+        }
+    }
+
+    /**
+     * Reads a dependency graph written by {@link #write(DependencyGraph, File)}.
+     *
+     * @param file the file to read
+     * @return the graph
+     * @throws IOException if the file cannot be read or is not in this format
+     */
+    public static DependencyGraph read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Trailer trailer = Trailer.read(channel);
+
+            String[] strings;
+            try (DataInputStream in = stream(channel, trailer.strings_pos)) {
+                strings = new String[readVarInt(in)];
+                for (int i = 0; i < strings.length; i++) {
+                    byte[] bytes = new byte[readVarInt(in)];
+                    in.readFully(bytes);
+                    strings[i] = new String(bytes, UTF_8);
+                }
+            }
+
+            DependencyGraph dependencyGraph = new DependencyGraph();
+            try (DataInputStream in = stream(channel, HEADER_SIZE)) {
+                MyNode[] node_table = new MyNode[readVarInt(in)];
+                Decoder decoder = new Decoder(in, id -> strings[id], id -> node_table[id]);
+                for (int i = 0; i < node_table.length; i++) {
+                    node_table[i] = decoder.readNode();
+                }
+                int edge_count = readVarInt(in);
+                List<Edge> edges = new ArrayList<>(edge_count);
+                for (int i = 0; i < edge_count; i++) {
+                    edges.add(decoder.readEdge());
+                }
+                int node_count = readVarInt(in);
+                List<MyNode> nodes = new ArrayList<>(node_count);
+                for (int i = 0; i < node_count; i++) {
+                    nodes.add(node_table[readVarInt(in)]);
+                }
+                dependencyGraph.nodes = nodes;
+                dependencyGraph.edges = edges;
+            }
+            return dependencyGraph;
+        }
+    }
+
+    private static DataInputStream stream(FileChannel channel, long position) throws IOException {
+        channel.position(position);
+        // the channel is closed by the caller
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16)) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static void registerNode(MyNode node, Map<MyNode, Integer> node_ids, Map<String, Integer> node_ids_by_value, List<MyNode> node_table) throws IOException {
+        if (node == null || node_ids.containsKey(node))
+            return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new Encoder(new DataOutputStream(bytes), null).writeNode(node);
+        String value = bytes.toString(ISO_8859_1);
+        Integer id = node_ids_by_value.get(value);
+        if (id == null) {
+            id = node_table.size();
+            node_table.add(node);
+            node_ids_by_value.put(value, id);
+        }
+        node_ids.put(node, id);
+    }
+
+    private static void writeOffsets(DataOutputStream out, long[] offsets) throws IOException {
+        out.writeInt(offsets.length);
+        for (long offset : offsets) {
+            out.writeLong(offset);
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Positions stored in the trailer of a graph file.
+     */
+    static class Trailer {
+        long edges_pos;
+        long graph_pos;
+        long strings_pos;
+        long index_pos;
+
+        static Trailer read(FileChannel channel) throws IOException {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE)
+                throw new IOException("Not a dependency graph file");
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            ByteBuffer buffer = ByteBuffer.allocate(TRAILER_SIZE);
+            channel.read(buffer, size - TRAILER_SIZE);
+            buffer.flip();
+            Trailer trailer = new Trailer();
+            trailer.edges_pos = buffer.getLong();
+            trailer.graph_pos = buffer.getLong();
+            trailer.strings_pos = buffer.getLong();
+            trailer.index_pos = buffer.getLong();
+            if (header.getInt() != MAGIC || buffer.getInt() != MAGIC)
+                throw new IOException("Not a dependency graph file");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported dependency graph file version: " + version);
+            return trailer;
+        }
+    }
+
+    /**
+     * Writes node and edge records. Strings are interned in {@link #strings}, or written inline
+     * when no table is given, which is how nodes are compared by value.
+     */
+    private static class Encoder {
+        final DataOutputStream out;
+        final Map<String, Integer> strings;
+
+        Encoder(DataOutputStream out, Map<String, Integer> strings) {
+            this.out = out;
+            this.strings = strings;
+        }
+
+        void writeString(String s) throws IOException {
+            if (s == null) {
+                writeVarInt(out, 0);
+            } else if (strings == null) {
+                byte[] bytes = s.getBytes(UTF_8);
+                writeVarInt(out, bytes.length + 1);
+                out.write(bytes);
+            } else {
+                Integer id = strings.get(s);
+                if (id == null) {
+                    id = strings.size();
+                    strings.put(s, id);
+                }
+                writeVarInt(out, id + 1);
+            }
+        }
+
+        void writeDouble(Double d) throws IOException {
+            out.writeBoolean(d != null);
+            if (d != null)
+                out.writeDouble(d);
+        }
+
+        void writeNode(MyNode node) throws IOException {
+            out.writeByte(node.getClass() == CSVNode.class ? CSV_NODE : NODE);
+            if (node.indexs == null) {
+                writeVarInt(out, 0);
+            } else {
+                writeVarInt(out, node.indexs.size() + 1);
+                for (Integer index : node.indexs) {
+                    out.writeInt(index);
+                }
+            }
+            Request request = node.request;
+            out.writeBoolean(request != null);
+            if (request != null) {
+                // method and url first, so that a node can be listed without decoding the rest
+                writeString(request.method);
+                writeString(request.url);
+                writeString(request.httpVersion);
+                writeDouble(request.headerSize);
+                writeDouble(request.bodySize);
+                writeVarInt(out, request.headers == null ? 0 : request.headers.length + 1);
+                if (request.headers != null) {
+                    for (Header header : request.headers) {
+                        writeString(header.name);
+                        writeString(header.value);
+                    }
+                }
+                writeVarInt(out, request.queryParams == null ? 0 : request.queryParams.length + 1);
+                if (request.queryParams != null) {
+                    for (QueryParam queryParam : request.queryParams) {
+                        writeString(queryParam.name);
+                        writeString(queryParam.value);
+                    }
+                }
+                writeVarInt(out, request.cookies == null ? 0 : request.cookies.length + 1);
+                if (request.cookies != null) {
+                    for (Cookie cookie : request.cookies) {
+                        writeString(cookie.name);
+                        writeString(cookie.value);
+                    }
+                }
+                PostData postData = request.postData;
+                out.writeBoolean(postData != null);
+                if (postData != null) {
+                    writeString(postData.mimeType);
+                    writeString(postData.text);
+                    writeVarInt(out, postData.params == null ? 0 : postData.params.length + 1);
+                    if (postData.params != null) {
+                        for (Param param : postData.params) {
+                            writeString(param.name);
+                            writeString(param.value);
+                        }
+                    }
+                }
+            }
+            if (node.getClass() == CSVNode.class) {
+                CSVNode csvNode = (CSVNode) node;
+                out.writeBoolean(csvNode.isIgnorefirstLine());
+                writeString(csvNode.getEncoding());
+                writeString(csvNode.getVariablesName());
+                writeString(csvNode.getFilename());
+            }
+        }
+
+        void writeEdge(Edge edge, Map<MyNode, Integer> node_ids) throws IOException {
+            byte tag;
+            if (edge.getClass() == EdgeUrl.class) tag = EDGE_URL;
+            else if (edge.getClass() == EdgeHeader.class) tag = EDGE_HEADER;
+            else if (edge.getClass() == EdgeQueryParam.class) tag = EDGE_QUERYPARAM;
+            else if (edge.getClass() == EdgeCookie.class) tag = EDGE_COOKIE;
+            else if (edge.getClass() == EdgeBodyUE.class) tag = EDGE_BODYUE;
+            else if (edge.getClass() == EdgeBodyJSON.class) tag = EDGE_BODYJSON;
+            else if (edge.getClass() == Edge.class) tag = EDGE;
+            else throw new IOException("Unsupported edge class: " + edge.getClass().getName());
+            out.writeByte(tag);
+            writeString(edge.type);
+            writeVarInt(out, edge.from == null ? 0 : node_ids.get(edge.from) + 1);
+            writeVarInt(out, edge.to == null ? 0 : node_ids.get(edge.to) + 1);
+            out.writeInt(edge.from_index);
+            out.writeInt(edge.to_index);
+            AtomicObject dependency = edge.dependency;
+            out.writeBoolean(dependency != null);
+            if (dependency != null) {
+                writeString(dependency.value);
+                writeString(dependency.name);
+                writeString(dependency.xpath);
+                out.writeBoolean(dependency.from_set_cookie);
+            }
+            switch (tag) {
+                case EDGE_URL: writeString(((EdgeUrl) edge).subPath); break;
+                case EDGE_HEADER: writeString(((EdgeHeader) edge).header_name); break;
+                case EDGE_QUERYPARAM: writeString(((EdgeQueryParam) edge).query_param_name); break;
+                case EDGE_COOKIE: writeString(((EdgeCookie) edge).name); break;
+                case EDGE_BODYUE: writeString(((EdgeBodyUE) edge).name); break;
+                case EDGE_BODYJSON: {
+                    EdgeBodyJSON edgeBodyJSON = (EdgeBodyJSON) edge;
+                    out.writeBoolean(edgeBodyJSON.primitive);
+                    writeString(edgeBodyJSON.name);
+                    // structured objects keep the shape they have in the JSON format
+                    writeString(edgeBodyJSON.structuredObject == null ? null : gson.toJson(edgeBodyJSON.structuredObject));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads node and edge records, resolving string and node ids through the given tables.
+     */
+    static class Decoder {
+        final DataInput in;
+        final IntFunction<String> strings;
+        final IntFunction<MyNode> nodes;
+
+        Decoder(DataInput in, IntFunction<String> strings, IntFunction<MyNode> nodes) {
+            this.in = in;
+            this.strings = strings;
+            this.nodes = nodes;
+        }
+
+        String readString() throws IOException {
+            int id = readVarInt(in);
+            return id == 0 ? null : strings.apply(id - 1);
+        }
+
+        Double readDouble() throws IOException {
+            return in.readBoolean() ? in.readDouble() : null;
+        }
+
+        MyNode readNode() throws IOException {
+            byte tag = in.readByte();
+            List<Integer> indexs = readIndexs();
+            Request request = in.readBoolean() ? readRequest() : null;
+            MyNode node;
+            if (tag == CSV_NODE) {
+                node = new CSVNode(in.readBoolean(), readString(), readString(), readString());
+                node.request = request;
+            } else {
+                node = new MyNode(request);
+            }
+            node.indexs = indexs;
+            return node;
+        }
+
+        List<Integer> readIndexs() throws IOException {
+            int count = readVarInt(in) - 1;
+            if (count < 0)
+                return null;
+            List<Integer> indexs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                indexs.add(in.readInt());
+            }
+            return indexs;
+        }
+
+        Request readRequest() throws IOException {
+            Request request = new Request();
+            request.method = readString();
+            request.url = readString();
+            request.httpVersion = readString();
+            request.headerSize = readDouble();
+            request.bodySize = readDouble();
+            int count = readVarInt(in) - 1;
+            if (count >= 0) {
+                request.headers = new Header[count];
+                for (int i = 0; i < count; i++) {
+                    Header header = new Header();
+                    header.name = readString();
+                    header.value = readString();
+                    request.headers[i] = header;
+                }
+            }
+            count = readVarInt(in) - 1;
+            if (count >= 0) {
+                request.queryParams = new QueryParam[count];
+                for (int i = 0; i < count; i++) {
+                    QueryParam queryParam = new QueryParam();
+                    queryParam.name = readString();
+                    queryParam.value = readString();
+                    request.queryParams[i] = queryParam;
+                }
+            }
+            count = readVarInt(in) - 1;
+            if (count >= 0) {
+                request.cookies = new Cookie[count];
+                for (int i = 0; i < count; i++) {
+                    Cookie cookie = new Cookie();
+                    cookie.name = readString();
+                    cookie.value = readString();
+                    request.cookies[i] = cookie;
+                }
+            }
+            if (in.readBoolean()) {
+                PostData postData = new PostData();
+                postData.mimeType = readString();
+                postData.text = readString();
+                count = readVarInt(in) - 1;
+                if (count >= 0) {
+                    postData.params = new Param[count];
+                    for (int i = 0; i < count; i++) {
+                        Param param = new Param();
+                        param.name = readString();
+                        param.value = readString();
+                        postData.params[i] = param;
+                    }
+                }
+                request.postData = postData;
+            }
+            return request;
+        }
+
+        Edge readEdge() throws IOException {
+            byte tag = in.readByte();
+            String type = readString();
+            int from_id = readVarInt(in);
+            int to_id = readVarInt(in);
+            MyNode from = from_id == 0 ? null : nodes.apply(from_id - 1);
+            MyNode to = to_id == 0 ? null : nodes.apply(to_id - 1);
+            int from_index = in.readInt();
+            int to_index = in.readInt();
+            AtomicObject dependency = null;
+            if (in.readBoolean()) {
+                dependency = new AtomicObject(readString(), readString(), readString(), in.readBoolean());
+            }
+            Edge edge;
+            switch (tag) {
+                case EDGE_URL: edge = new EdgeUrl(from, to, readString(), dependency); break;
+                case EDGE_HEADER: edge = new EdgeHeader(from, to, readString(), dependency); break;
+                case EDGE_QUERYPARAM: edge = new EdgeQueryParam(from, to, readString(), dependency); break;
+                case EDGE_COOKIE: edge = new EdgeCookie(from, to, readString(), dependency); break;
+                case EDGE_BODYUE: edge = new EdgeBodyUE(from, to, readString(), dependency); break;
+                case EDGE_BODYJSON: {
+                    boolean primitive = in.readBoolean();
+                    EdgeBodyJSON edgeBodyJSON = new EdgeBodyJSON(primitive, readString(), from, to, dependency, null);
+                    String structuredObject = readString();
+                    edgeBodyJSON.structuredObject = structuredObject == null ? null : gson.fromJson(structuredObject, StructuredObject.class);
+                    edge = edgeBodyJSON;
+                    break;
+                }
+                case EDGE: edge = new Edge(from, to, type, dependency); break;
+                default: throw new IOException("Unknown edge record: " + tag);
+            }
+            edge.type = type;
+            edge.from_index = from_index;
+            edge.to_index = to_index;
+            return edge;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
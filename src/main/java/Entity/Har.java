@@ -11,6 +11,10 @@ public class Har implements Serializable {
         return log;
     }
 
+    public void setLog(Log log) {
+        this.log = log;
+    }
+
     @SerializedName("log")
     Log log;
 }
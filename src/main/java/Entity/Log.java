@@ -22,6 +22,18 @@ public class Log implements Serializable {
         return entries;
     }
 
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public void setCreator(Creator creator) {
+        this.creator = creator;
+    }
+
+    public void setEntries(Entry[] entries) {
+        this.entries = entries;
+    }
+
     @SerializedName("version")
     String version;
     @SerializedName("pages")
@@ -3,6 +3,7 @@ package Entity;
 import com.google.gson.annotations.SerializedName;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 public class Request implements Serializable {
 
@@ -94,4 +95,13 @@ public class Request implements Serializable {
 
 
 
+
+    @Override
+    public int hashCode() {
+        // consistent with equals: the post body is part of the identity of POST and PUT requests
+        int hash = Objects.hash(url, method);
+        if((method.equals("POST") || method.equals("PUT")) && postData != null)
+            hash = 31 * hash + Objects.hashCode(postData.text);
+        return hash;
+    }
 }
@@ -0,0 +1,357 @@
+package Entity;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Read-only, lazily decoded view of a saved dependency graph.
+ *
+ * <p>Of a graph saved in the {@link GraphBinaryFormat binary format} nothing but the trailer and
+ * the list of graph nodes is read when the view is opened. The offset index of the file is then
+ * used to decode on demand, with positional reads of the file:
+ * <ul>
+ *     <li>single strings of the string table;</li>
+ *     <li>the method and url of a node, without decoding the rest of its request;</li>
+ *     <li>full nodes and edges (request headers, bodies, dependency values, ...), the first time
+ *     they are accessed. Decoded records are cached, so nodes shared by several edges are the
+ *     same object, as in {@link GraphBinaryFormat#read(File)}.</li>
+ * </ul>
+ * Counting, listing and inspecting saved correlations therefore only touches the part of the
+ * file that is shown.
+ *
+ * <p>Graphs saved as JSON by older versions have no index: they are loaded eagerly and the view
+ * simply wraps the loaded graph.
+ *
+ * <p>The view keeps the file open until it is {@link #close() closed}; records not decoded yet
+ * cannot be read afterwards.
+ */
+public class SavedGraphView implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+
+    private final DependencyGraph loaded;
+
+    private final FileChannel channel;
+    private final long node_offsets_pos;
+    private final long edge_offsets_pos;
+    private final long string_offsets_pos;
+    private final int node_table_size;
+    private final int edge_count;
+    private final int string_count;
+    private final int[] graph_node_ids;
+
+    private final String[] strings;
+    private final MyNode[] node_table;
+    private final Edge[] edges;
+
+    private SavedGraphView(DependencyGraph loaded) {
+        this.loaded = loaded;
+        this.channel = null;
+        this.node_offsets_pos = this.edge_offsets_pos = this.string_offsets_pos = 0;
+        this.node_table_size = this.edge_count = this.string_count = 0;
+        this.graph_node_ids = null;
+        this.strings = null;
+        this.node_table = null;
+        this.edges = null;
+    }
+
+    private SavedGraphView(FileChannel channel, GraphBinaryFormat.Trailer trailer) throws IOException {
+        this.loaded = null;
+        this.channel = channel;
+
+        long pos = trailer.index_pos;
+        node_table_size = read(channel, pos, 4).getInt();
+        node_offsets_pos = pos + 4;
+        pos = node_offsets_pos + 8L * node_table_size;
+        edge_count = read(channel, pos, 4).getInt();
+        edge_offsets_pos = pos + 4;
+        pos = edge_offsets_pos + 8L * edge_count;
+        string_count = read(channel, pos, 4).getInt();
+        string_offsets_pos = pos + 4;
+
+        DataInput in = input(trailer.graph_pos);
+        graph_node_ids = new int[GraphBinaryFormat.readVarInt(in)];
+        for (int i = 0; i < graph_node_ids.length; i++) {
+            graph_node_ids[i] = GraphBinaryFormat.readVarInt(in);
+        }
+
+        strings = new String[string_count];
+        node_table = new MyNode[node_table_size];
+        edges = new Edge[edge_count];
+    }
+
+    /**
+     * Opens a saved dependency graph. Binary files are kept open and read on demand, JSON files
+     * are loaded.
+     *
+     * @param file the saved graph
+     * @return the view, to be closed once read
+     * @throws IOException if the file cannot be read or is not a dependency graph
+     */
+    public static SavedGraphView open(File file) throws IOException {
+        if (!GraphBinaryFormat.isBinary(file)) {
+            return new SavedGraphView(DependencyGraph.parseGraphByFile(file));
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new SavedGraphView(channel, GraphBinaryFormat.Trailer.read(channel));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the number of edges of a graph saved in the binary format from its index, without
+     * reading anything else and without keeping the file open.
+     *
+     * @param file the saved graph
+     * @return the number of edges, -1 for graphs saved as JSON, which have no index
+     * @throws IOException if the file cannot be read or is not a dependency graph
+     */
+    public static int readEdgeCount(File file) throws IOException {
+        if (!GraphBinaryFormat.isBinary(file))
+            return -1;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            GraphBinaryFormat.Trailer trailer = GraphBinaryFormat.Trailer.read(channel);
+            int node_table_size = read(channel, trailer.index_pos, 4).getInt();
+            return read(channel, trailer.index_pos + 4 + 8L * node_table_size, 4).getInt();
+        }
+    }
+
+    /**
+     * Closes the file of the view. Records already decoded stay readable.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null)
+            channel.close();
+    }
+
+    /**
+     * @return number of nodes of the graph
+     */
+    public int getNodeCount() {
+        return loaded != null ? loaded.nodes.size() : graph_node_ids.length;
+    }
+
+    /**
+     * @return number of edges of the graph
+     */
+    public int getEdgeCount() {
+        return loaded != null ? loaded.edges.size() : edge_count;
+    }
+
+    /**
+     * Returns the HTTP method of a node without decoding the node.
+     *
+     * @param i position of the node in the graph
+     * @return the method, null for nodes without request
+     */
+    public synchronized String getNodeMethod(int i) {
+        if (loaded != null) {
+            MyNode node = loaded.nodes.get(i);
+            return node.request == null ? null : node.request.method;
+        }
+        return readNodeHead(graph_node_ids[i], false);
+    }
+
+    /**
+     * Returns the url of a node without decoding the node.
+     *
+     * @param i position of the node in the graph
+     * @return the url, null for nodes without request
+     */
+    public synchronized String getNodeUrl(int i) {
+        if (loaded != null) {
+            MyNode node = loaded.nodes.get(i);
+            return node.request == null ? null : node.request.url;
+        }
+        return readNodeHead(graph_node_ids[i], true);
+    }
+
+    /**
+     * Returns a node, decoding it on first access.
+     *
+     * @param i position of the node in the graph
+     * @return the node
+     */
+    public synchronized MyNode getNode(int i) {
+        if (loaded != null)
+            return loaded.nodes.get(i);
+        return nodeById(graph_node_ids[i]);
+    }
+
+    /**
+     * Returns an edge, decoding it and its endpoints on first access.
+     *
+     * @param i position of the edge in the graph
+     * @return the edge
+     */
+    public synchronized Edge getEdge(int i) {
+        if (loaded != null)
+            return loaded.edges.get(i);
+        if (edges[i] == null) {
+            edges[i] = decode(offset(edge_offsets_pos, i, edge_count), GraphBinaryFormat.Decoder::readEdge);
+        }
+        return edges[i];
+    }
+
+    /**
+     * @return the nodes of the graph, each decoded when it is first read from the list
+     */
+    public List<MyNode> getNodes() {
+        return new AbstractList<MyNode>() {
+            @Override
+            public MyNode get(int i) {
+                return getNode(i);
+            }
+
+            @Override
+            public int size() {
+                return getNodeCount();
+            }
+        };
+    }
+
+    /**
+     * @return the edges of the graph, each decoded when it is first read from the list
+     */
+    public List<Edge> getEdges() {
+        return new AbstractList<Edge>() {
+            @Override
+            public Edge get(int i) {
+                return getEdge(i);
+            }
+
+            @Override
+            public int size() {
+                return getEdgeCount();
+            }
+        };
+    }
+
+    /**
+     * Decodes the whole graph. The result is equal to the one of
+     * {@link DependencyGraph#parseGraphByFile(File)} and shares the records already decoded.
+     *
+     * @return a modifiable dependency graph
+     */
+    public synchronized DependencyGraph toDependencyGraph() {
+        if (loaded != null)
+            return loaded;
+        DependencyGraph dependencyGraph = new DependencyGraph();
+        for (int i = 0; i < getNodeCount(); i++) {
+            dependencyGraph.nodes.add(getNode(i));
+        }
+        for (int i = 0; i < getEdgeCount(); i++) {
+            dependencyGraph.edges.add(getEdge(i));
+        }
+        return dependencyGraph;
+    }
+
+    private MyNode nodeById(int id) {
+        if (node_table[id] == null) {
+            node_table[id] = decode(offset(node_offsets_pos, id, node_table_size), GraphBinaryFormat.Decoder::readNode);
+        }
+        return node_table[id];
+    }
+
+    private String string(int id) {
+        if (strings[id] == null) {
+            try {
+                DataInput in = input(offset(string_offsets_pos, id, string_count));
+                byte[] bytes = new byte[GraphBinaryFormat.readVarInt(in)];
+                in.readFully(bytes);
+                strings[id] = new String(bytes, UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return strings[id];
+    }
+
+    // reads the method or the url of a node record, which come first in the request
+    private String readNodeHead(int id, boolean url) {
+        if (node_table[id] != null) {
+            Request request = node_table[id].request;
+            return request == null ? null : url ? request.url : request.method;
+        }
+        try {
+            GraphBinaryFormat.Decoder decoder = decoder(offset(node_offsets_pos, id, node_table_size));
+            decoder.in.readByte();
+            decoder.readIndexs();
+            if (!decoder.in.readBoolean())
+                return null;
+            String method = decoder.readString();
+            return url ? decoder.readString() : method;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Read<T> {
+        T read(GraphBinaryFormat.Decoder decoder) throws IOException;
+    }
+
+    private <T> T decode(long position, Read<T> read) {
+        try {
+            return read.read(decoder(position));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private GraphBinaryFormat.Decoder decoder(long position) {
+        return new GraphBinaryFormat.Decoder(input(position), this::string, this::nodeById);
+    }
+
+    private long offset(long offsets_pos, int i, int count) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+        try {
+            return read(channel, offsets_pos + 8L * i, 8).getLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DataInput input(long position) {
+        // positional reads leave the channel position alone, so inputs never interfere
+        return new DataInputStream(new BufferedInputStream(new InputStream() {
+            private long pos = position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = channel.read(ByteBuffer.wrap(b, off, len), pos);
+                if (n > 0)
+                    pos += n;
+                return n;
+            }
+        }, READ_BUFFER_SIZE));
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("Truncated dependency graph file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -1,16 +1,15 @@
+import Services.Batch.BatchMain;
 import Services.HomeView.E2eTableService;
 import Services.HomeView.HomeServices;
+import Services.HomeView.StartupTimings;
 import Services.HomeView.WorkloadTableModel;
 import Services.HomeView.WorkloadTableService;
 import View.Home;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.WindowAdapter;
-import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.Arrays;
 
 import Services.HomeView.WorkloadGraph.ChartWorkload;
 import com.formdev.flatlaf.FlatIntelliJLaf;
@@ -20,49 +19,13 @@ import org.jfree.chart.ChartPanel;
 
 public class Main {
 
-    public static void startExpressContainer() throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder(
-                "docker", "run", "-d", "-p", "4000:4000", "--name", "my-express-app-container", "schema-generator-app:latest"
-        );
-        pb.inheritIO(); // shows output in console
-        Process process = pb.start();
-        process.waitFor();
-    }
-
-    public static void stopExpressContainer() throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder(
-                "docker", "stop", "my-express-app-container"
-        );
-        pb.inheritIO();
-        Process process = pb.start();
-        process.waitFor();
-
-        // Optional: remove container after stopping
-        pb = new ProcessBuilder(
-                "docker", "rm", "my-express-app-container"
-        );
-        pb.inheritIO();
-        process = pb.start();
-        process.waitFor();
-    }
-
-    public static void waitForExpress(String urlString) throws InterruptedException {
-        boolean up = false;
-        while (!up) {
-            try {
-                URL url = new URL(urlString);
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                conn.setConnectTimeout(2000);
-                conn.setReadTimeout(2000);
-                conn.setRequestMethod("GET");
-                int code = conn.getResponseCode();
-                if (code >= 200 && code < 500) { // server is responding
-                    up = true;
-                }
-            } catch (IOException e) {
-                // server not ready yet
-            }
-            if (!up) Thread.sleep(1000); // wait 1 second before retry
+    // headless batch mode, see BatchMain
+    private static int runBatch(String[] args) {
+        try {
+            return BatchMain.run(args);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return 2;
         }
     }
 
@@ -75,15 +38,18 @@ public class Main {
             }
         }*/
 
-        try{
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(Arrays.copyOfRange(args, 1, args.length)));
+        }
 
-            startExpressContainer();
-            waitForExpress("http://localhost:4000/");
+        StartupTimings.start();
+        try{
             IntelliJTheme.setup( Main.class.getResourceAsStream("/arc-theme-orange.theme.json"));
             //IntelliJTheme.setup( Main.class.getResourceAsStream("/data/themes/arc-theme-orange.theme.json"));
         }catch (Exception e){
             e.printStackTrace();
         }
+        StartupTimings.mark("theme");
         // luching desktop app
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -111,44 +77,22 @@ public class Main {
                 home.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
                 home.setSize(1000, 800);
                 home.setLocationRelativeTo(null);
-                ChartWorkload chartWorkload = new ChartWorkload();
-                ChartPanel chartPanel = chartWorkload.ReturnChartPanel(((WorkloadTableModel)home.getScriptChosenTable().getModel()).getThredGroups());
-                home.getCHART().add(chartPanel);
-                home.setVisible(true);
                 ImageIcon img = new ImageIcon(getClass().getResource("/img/logo.png"));
                 home.setIconImage(img.getImage());
-                home.addWindowListener(
-                        new WindowAdapter() {
-                            @Override
-                            public void windowClosing(WindowEvent e) {
-                                // Show a dialog before shutting down
-                                JOptionPane.showMessageDialog(home,
-                                        "The application is closing.\nPlease wait a moment while resources are released...",
-                                        "Closing",
-                                        JOptionPane.WARNING_MESSAGE);
-
-                                // Stop container (blocking operation)
-                                try {
-                                    stopExpressContainer();
-                                } catch (Exception ex) {
-                                    ex.printStackTrace();
-                                }
-
-                                // Exit once cleanup is done
-                                System.exit(0);
-                            }
-                        });
+                StartupTimings.mark("home");
+                home.setVisible(true);
+                StartupTimings.mark("window");
+                // the chart library is slow to load: the window is shown first, the chart follows
+                SwingUtilities.invokeLater(() -> {
+                    ChartWorkload chartWorkload = new ChartWorkload();
+                    ChartPanel chartPanel = chartWorkload.ReturnChartPanel(((WorkloadTableModel)home.getScriptChosenTable().getModel()).getThredGroups());
+                    home.getCHART().add(chartPanel);
+                    home.getCHART().revalidate();
+                    StartupTimings.mark("chart");
+                    System.out.println(StartupTimings.format());
+                });
             }
 
         });
-        /*
-        // app exit, stop container
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            try {
-                stopExpressContainer();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }));*/
     }
 }
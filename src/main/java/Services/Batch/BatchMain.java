@@ -0,0 +1,240 @@
+package Services.Batch;
+
+import Entity.DependencyGraph;
+import Entity.GraphBinaryFormat;
+import Entity.UltimateThreadGroup;
+import Properties.Paths;
+import Services.CorrelationsView.ScriptGeneration.Converter;
+import Services.CorrelationsView.ScriptGeneration.JMeterAdaption;
+import Services.CorrelationsView.ScriptGeneration.JMeterLoadCreator;
+import Services.Dependencies.ExtractDependencies;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch mode: correlates every HAR of an E2E tests directory and generates its JMeter
+ * script, without opening any window.
+ *
+ * <p>For each {@code <e2e tests dir>/hars/<name>.har} the batch:
+ * <ul>
+ *   <li>extracts the dependencies and saves the graph in {@link Paths#odp_path}, as the GUI does
+ *   before customization</li>
+ *   <li>saves the whole graph, with every dependency selected, as the correlation file
+ *   {@code <name>-all} in {@link Paths#dep_saved_path}</li>
+ *   <li>converts the HAR to the script {@code <name>.jmx}, if it is not in
+ *   {@link Paths#scripts_saved_path} yet or if {@code --convert} is given</li>
+ *   <li>adds the correlations to the script, writing {@code <name>-all.jmx}; with
+ *   {@code --json-templates} the JSON bodies built from a whole previous response are recorded
+ *   bodies with JMeter variables instead of JSR223 pre-processors, see
+ *   {@link JMeterAdaption#setJsonBodyTemplates(boolean)}</li>
+ * </ul>
+ * Files are processed in parallel; the time spent in each step and the number of dependencies
+ * found are printed at the end. Optionally the generated scripts are combined in a load test
+ * plan, with the same thread group for each script.
+ *
+ * <p>Started by {@code Main --batch ...}.
+ */
+public class BatchMain {
+
+    private static final String USAGE =
+            "usage: --batch <e2e tests dir> [--threads <n>] [--convert] [--json-templates]" +
+            " [--load <name> <threads>,<initial delay>,<startup time>,<hold load for>,<shutdown time>]";
+
+    private static final String CORRELATION_SUFFIX = "-all";
+
+    /**
+     * Outcome of the processing of a HAR file.
+     */
+    public static class FileReport {
+        public final String name;
+        public int nodes;
+        public int edges;
+        public long analysis_ms;
+        public long graph_ms;
+        public long script_ms;
+        public String script;
+        public Exception error;
+
+        FileReport(String name) {
+            this.name = name;
+        }
+
+        public long getTotalMs() {
+            return analysis_ms + graph_ms + script_ms;
+        }
+
+        public boolean isSucceeded() {
+            return error == null;
+        }
+    }
+
+    private final File e2e_dir;
+    private final int threads;
+    private final boolean convert;
+    private final boolean json_body_templates;
+
+    /**
+     * @param e2e_dir             directory of the E2E tests, containing the {@code hars} directory
+     * @param threads             number of HAR files processed at the same time
+     * @param convert             true to convert again the HAR files whose script already exists
+     * @param json_body_templates true to generate JSON bodies as templates, see
+     *                            {@link JMeterAdaption#setJsonBodyTemplates(boolean)}
+     */
+    public BatchMain(File e2e_dir, int threads, boolean convert, boolean json_body_templates) {
+        this.e2e_dir = e2e_dir;
+        this.threads = threads;
+        this.convert = convert;
+        this.json_body_templates = json_body_templates;
+    }
+
+    /**
+     * Processes every HAR file of the E2E tests directory.
+     *
+     * @return the reports, in HAR file name order
+     * @throws InterruptedException if interrupted while waiting for the files
+     */
+    public List<FileReport> run() throws InterruptedException {
+        File[] hars = new File(e2e_dir, "hars").listFiles((dir, name) -> name.endsWith(".har"));
+        if (hars == null)
+            throw new IllegalArgumentException("No hars directory in " + e2e_dir);
+        Arrays.sort(hars);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<FileReport>> futures = new ArrayList<>();
+            for (File har : hars) {
+                futures.add(executor.submit(() -> process(har)));
+            }
+            List<FileReport> reports = new ArrayList<>();
+            for (Future<FileReport> future : futures) {
+                try {
+                    reports.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return reports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FileReport process(File har_file) {
+        String name = har_file.getName().substring(0, har_file.getName().length() - ".har".length());
+        FileReport report = new FileReport(name);
+        try {
+            long start = System.nanoTime();
+            ExtractDependencies extractDependencies = new ExtractDependencies(har_file, true);
+            // files are already processed in parallel, a single HAR uses all processors only when alone
+            extractDependencies.setParallelism(threads == 1 ? Runtime.getRuntime().availableProcessors() : 1);
+            extractDependencies.analyze_responses();
+            long analyzed = System.nanoTime();
+            report.analysis_ms = (analyzed - start) / 1_000_000;
+
+            DependencyGraph dependencyGraph = extractDependencies.build_dependencies_graph();
+            report.nodes = dependencyGraph.nodes.size();
+            report.edges = dependencyGraph.edges.size();
+            // written directly: saveDependencyGraph prints the whole graph to stdout
+            GraphBinaryFormat.write(dependencyGraph, new File(Paths.odp_path + "/" + name + GraphBinaryFormat.EXTENSION));
+            String correlation_file = name + CORRELATION_SUFFIX + GraphBinaryFormat.EXTENSION;
+            GraphBinaryFormat.write(dependencyGraph, new File(Paths.dep_saved_path + "/" + correlation_file));
+            long built = System.nanoTime();
+            report.graph_ms = (built - analyzed) / 1_000_000;
+
+            if (convert || !new File(Paths.scripts_saved_path + "/" + name + ".jmx").exists())
+                Converter.runMain(name, har_file.getName(), e2e_dir.getPath());
+            JMeterAdaption.runJMeterAdaption(dependencyGraph, Paths.scripts_saved_path + "/" + name + ".jmx", correlation_file, json_body_templates);
+            report.script = name + CORRELATION_SUFFIX + ".jmx";
+            report.script_ms = (System.nanoTime() - built) / 1_000_000;
+        } catch (Exception e) {
+            report.error = e;
+        }
+        return report;
+    }
+
+    /**
+     * Prints a line for each file and the totals.
+     *
+     * @param reports reports returned by {@link #run()}
+     */
+    public static void printReports(List<FileReport> reports) {
+        System.out.println(String.format("%-40s %8s %8s %10s %10s %10s %10s  %s",
+                "HAR", "nodes", "edges", "analysis", "graph", "script", "total", "result"));
+        long total = 0;
+        int failed = 0;
+        for (FileReport report : reports) {
+            total += report.getTotalMs();
+            if (!report.isSucceeded())
+                failed++;
+            System.out.println(String.format("%-40s %8d %8d %8dms %8dms %8dms %8dms  %s",
+                    report.name, report.nodes, report.edges, report.analysis_ms, report.graph_ms,
+                    report.script_ms, report.getTotalMs(), report.isSucceeded() ? report.script : "FAILED: " + report.error));
+        }
+        System.out.println((reports.size() - failed) + "/" + reports.size() + " scripts created, " + total + "ms of processing");
+    }
+
+    /**
+     * Runs the batch.
+     *
+     * @param args command line arguments following {@code --batch}
+     * @return the process exit code: 0 if every script has been created
+     * @throws Exception if the arguments are invalid or the load test plan cannot be written
+     */
+    public static int run(String[] args) throws Exception {
+        if (args.length == 0)
+            throw new IllegalArgumentException(USAGE);
+        File e2e_dir = new File(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean convert = false;
+        boolean json_body_templates = false;
+        String load_name = null;
+        String[] load_profile = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(requireValue(args, ++i));
+                    break;
+                case "--convert":
+                    convert = true;
+                    break;
+                case "--json-templates":
+                    json_body_templates = true;
+                    break;
+                case "--load":
+                    load_name = requireValue(args, ++i);
+                    load_profile = requireValue(args, ++i).split(",");
+                    if (load_profile.length != 5)
+                        throw new IllegalArgumentException(USAGE);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + "\n" + USAGE);
+            }
+        }
+        List<FileReport> reports = new BatchMain(e2e_dir, threads, convert, json_body_templates).run();
+        printReports(reports);
+        boolean succeeded = reports.stream().allMatch(FileReport::isSucceeded);
+        if (load_name != null) {
+            ArrayList<UltimateThreadGroup> thread_groups = new ArrayList<>();
+            for (FileReport report : reports) {
+                if (report.isSucceeded())
+                    thread_groups.add(new UltimateThreadGroup(load_profile[0], load_profile[1], load_profile[2],
+                            load_profile[3], load_profile[4], report.script));
+            }
+            JMeterLoadCreator.runJMeterCreator(thread_groups, load_name);
+            System.out.println("Load test plan saved in " + Paths.scripts_saved_path + "/" + load_name + ".jmx");
+        }
+        return succeeded ? 0 : 1;
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length)
+            throw new IllegalArgumentException(USAGE);
+        return args[i];
+    }
+}
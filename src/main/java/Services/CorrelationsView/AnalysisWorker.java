@@ -0,0 +1,198 @@
+package Services.CorrelationsView;
+
+import Services.Dependencies.ProgressListener;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a long analysis or generation task outside the Swing event dispatch thread.
+ *
+ * <p>The task reports its progress through the {@link ProgressListener} interface, from the
+ * worker thread; events are handed over to the event dispatch thread and shown in a
+ * {@link ProgressMonitor}. Pressing its cancel button interrupts the worker thread, which the
+ * dependency analysis checks between responses and checks.
+ *
+ * <p>The progress monitor is not modal: the components starting the task are passed to
+ * {@link #start(Component...)}, which disables them until the task is done, so that the task is
+ * not started again while it runs. They are enabled again only once the worker thread has left
+ * the task: a cancelled task is reported as done at once, while the interrupted thread may still
+ * be finishing the current response or check.
+ *
+ * <p>The result, the failure or the cancellation of the task is delivered on the event dispatch
+ * thread to {@link #succeeded(Object)}, {@link #failed(Throwable)} or {@link #cancelled()}. The
+ * task itself is implemented by {@link #compute()}.
+ *
+ * @param <T> type of the task result
+ */
+public abstract class AnalysisWorker<T> extends SwingWorker<T, AnalysisWorker.Progress> implements ProgressListener {
+
+    /**
+     * A progress event, as received by {@link #progress(Stage, String, int, int)}.
+     */
+    static final class Progress {
+        final Stage stage;
+        final String detail;
+        final int done;
+        final int total;
+
+        Progress(Stage stage, String detail, int done, int total) {
+            this.stage = stage;
+            this.detail = detail;
+            this.done = done;
+            this.total = total;
+        }
+    }
+
+    private final ProgressMonitor progressMonitor;
+    private final Timer cancelTimer;
+    private Component[] disabled = new Component[0];
+    // set by the worker thread entering the task, or by a cancellation that came first
+    private final AtomicBoolean entered = new AtomicBoolean();
+    // both only read and written on the event dispatch thread
+    private boolean reported;
+    private boolean exited;
+
+    /**
+     * @param parent  component the progress monitor is shown over
+     * @param message message shown above the stage description
+     */
+    protected AnalysisWorker(Component parent, String message) {
+        this.progressMonitor = new ProgressMonitor(parent, message, "", 0, 100);
+        this.progressMonitor.setMillisToDecideToPopup(100);
+        this.progressMonitor.setMillisToPopup(300);
+        // the monitor cancel button is only read, so it is polled
+        this.cancelTimer = new Timer(250, e -> {
+            if (progressMonitor.isCanceled()) {
+                cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Starts the task. Must be called on the event dispatch thread.
+     *
+     * @param disabled components disabled until the task is done, e.g. the button starting it
+     */
+    public void start(Component... disabled) {
+        this.disabled = disabled;
+        for (Component component : disabled) {
+            component.setEnabled(false);
+        }
+        cancelTimer.start();
+        execute();
+    }
+
+    /**
+     * Runs the task on the worker thread.
+     *
+     * @return the task result
+     * @throws Exception if the task fails; a {@link CancellationException} reports it as cancelled
+     */
+    protected abstract T compute() throws Exception;
+
+    @Override
+    protected final T doInBackground() throws Exception {
+        if (!entered.compareAndSet(false, true))
+            throw new CancellationException();
+        try {
+            return compute();
+        } finally {
+            SwingUtilities.invokeLater(() -> {
+                exited = true;
+                enableIfFinished();
+            });
+        }
+    }
+
+    @Override
+    public void progress(Stage stage, String detail, int done, int total) {
+        publish(new Progress(stage, detail, done, total));
+    }
+
+    @Override
+    protected void process(List<Progress> chunks) {
+        Progress progress = chunks.get(chunks.size() - 1);
+        StringBuilder note = new StringBuilder(progress.stage.getDescription());
+        if (progress.detail != null) {
+            note.append(": ").append(progress.detail);
+        }
+        if (progress.total > 0) {
+            note.append(" (").append(progress.done).append('/').append(progress.total).append(')');
+        }
+        progressMonitor.setNote(note.toString());
+        // reaching the maximum would close the monitor before the following stages
+        progressMonitor.setProgress(progress.total > 0 ? Math.min(99, progress.done * 100 / progress.total) : 0);
+    }
+
+    @Override
+    protected final void done() {
+        cancelTimer.stop();
+        progressMonitor.close();
+        // a task cancelled before it was entered never runs
+        if (entered.compareAndSet(false, true)) {
+            exited = true;
+        }
+        try {
+            report();
+        } finally {
+            reported = true;
+            enableIfFinished();
+        }
+    }
+
+    private void report() {
+        if (isCancelled()) {
+            cancelled();
+            return;
+        }
+        try {
+            succeeded(get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                cancelled();
+            } else {
+                failed(e.getCause());
+            }
+        }
+    }
+
+    // done() may run before the worker thread leaves a cancelled task, or after it leaves a finished one
+    private void enableIfFinished() {
+        if (!reported || !exited)
+            return;
+        for (Component component : disabled) {
+            component.setEnabled(true);
+        }
+    }
+
+    /**
+     * Called on the event dispatch thread with the result of the task.
+     *
+     * @param result value returned by {@link #compute()}
+     */
+    protected abstract void succeeded(T result);
+
+    /**
+     * Called on the event dispatch thread when the task fails. Shows the error.
+     *
+     * @param cause exception thrown by {@link #compute()}
+     */
+    protected void failed(Throwable cause) {
+        cause.printStackTrace();
+        JOptionPane.showMessageDialog(null, cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Called on the event dispatch thread when the task has been cancelled.
+     */
+    protected void cancelled() {
+        System.out.println("Task cancelled");
+    }
+}
@@ -2,6 +2,7 @@ package Services.CorrelationsView;
 
 import Entity.DependencyGraph;
 import Entity.Har;
+import Entity.SavedGraphView;
 import Entity.UltimateThreadGroup;
 import Properties.Paths;
 import Services.CorrelationsView.ScriptGeneration.Converter;
@@ -22,6 +23,7 @@ import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
 
 public class CorrelationFrameService {
 
@@ -81,35 +83,36 @@ public class CorrelationFrameService {
         return new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                File file_json_odg = new File(Paths.odp_path+"/"+filename+".json");
-                DependencyGraph dependencyGraph =null;
-                Har har = null;
-                ExtractDependencies extractDependencies = null;
-                try {
-                    extractDependencies = new ExtractDependencies(har_file);
-                    har = extractDependencies.getHar();
-                    extractDependencies.analyze_responses();
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-               if (file_json_odg.exists()) {
-                    System.out.println("File exists in the folder.");
-                    try {
-                        dependencyGraph = DependencyGraph.parseGraphByFile(file_json_odg);
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
+                // the HAR analysis may take minutes: it runs in a worker and the result is shown on the EDT
+                new AnalysisWorker<CorrelatorHelperService>(correlationFrame, "Analyzing " + har_file.getName()) {
+                    @Override
+                    protected CorrelatorHelperService compute() throws IOException {
+                        File file_json_odg = DependencyGraph.getGraphFile(Paths.odp_path,filename);
+                        DependencyGraph dependencyGraph;
+                        progress(Stage.PARSING, har_file.getName(), 0, 0);
+                        ExtractDependencies extractDependencies = new ExtractDependencies(har_file, true);
+                        extractDependencies.setParallelism(Runtime.getRuntime().availableProcessors());
+                        extractDependencies.setProgressListener(this);
+                        Har har = extractDependencies.getHar();
+                        extractDependencies.analyze_responses();
+                        if (file_json_odg.exists()) {
+                            System.out.println("File exists in the folder.");
+                            try (SavedGraphView savedGraphView = SavedGraphView.open(file_json_odg)) {
+                                dependencyGraph = savedGraphView.toDependencyGraph();
+                            }
+                        } else {
+                            System.out.println("File does not exist in the folder.");
+                            dependencyGraph = extractDependencies.build_dependencies_graph();
+                            dependencyGraph.saveDependencyGraph(dependencyGraph, har_file);
+                        }
+                        return new CorrelatorHelperService(extractDependencies.getResponseUnstructuredList(),dependencyGraph,har,correlationFrame.getE2eName(),correlationFrame);
                     }
-                } else {
-                System.out.println("File does not exist in the folder.");
-                    try {
-                        dependencyGraph = extractDependencies.build_dependencies_graph();
-                        dependencyGraph.saveDependencyGraph(dependencyGraph, har_file);
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
+
+                    @Override
+                    protected void succeeded(CorrelatorHelperService correlatorHelperService) {
+                        correlatorHelperService.runCustomizeCorrelationFrame();
                     }
-                }
-                CorrelatorHelperService correlatorHelperService = new CorrelatorHelperService(extractDependencies.getResponseUnstructuredList(),dependencyGraph,har,correlationFrame.getE2eName(),correlationFrame);
-                correlatorHelperService.runCustomizeCorrelationFrame();
+                }.start(correlationFrame.getAddButton());
             }
         };
     }
@@ -157,10 +160,6 @@ public class CorrelationFrameService {
         return new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-
-                JOptionPane.showMessageDialog(null, "Script creation in progress...\n May take some time...",
-                        "Script creation",
-                        JOptionPane.WARNING_MESSAGE);
                 String correlation_selected= "";
                 int cnt=0;
                 for(int i=0;i<correlationFrame.getCorrelationsTable().getRowCount();i++) {
@@ -171,28 +170,41 @@ public class CorrelationFrameService {
                 }
                 if(cnt>1 || correlation_selected.equals("")) {
                     JOptionPane.showMessageDialog(null,"Only a correlations file must be selected","Error",JOptionPane.ERROR_MESSAGE);
-                } else
-                {
-                    try {
-                        Converter.runMain(filename,filename+".har",e2eTestsPath);
-                    } catch (Exception e) {
-                        JOptionPane.showMessageDialog(null,e.getMessage(),"Error",JOptionPane.ERROR_MESSAGE);
-                        System.out.println(e.toString());
+                    return;
+                }
+                String correlation_file = correlation_selected;
+                new AnalysisWorker<Void>(correlationFrame, "Script creation") {
+                    @Override
+                    protected Void compute() throws Exception {
+                        progress(Stage.SCRIPT, "Converting " + filename + ".har", 0, 2);
+                        try {
+                            Converter.runMain(filename,filename+".har",e2eTestsPath);
+                        } catch (InterruptedException e) {
+                            throw new CancellationException();
+                        } catch (Exception e) {
+                            // the conversion error is shown, the adaption of an already converted script is still tried
+                            System.out.println(e.toString());
+                            SwingUtilities.invokeLater(() ->
+                                    JOptionPane.showMessageDialog(null,e.getMessage(),"Error",JOptionPane.ERROR_MESSAGE));
+                        }
+                        progress(Stage.SCRIPT, "Adding correlations of " + correlation_file, 1, 2);
+                        DependencyGraph dependencyGraph;
+                        try (SavedGraphView savedGraphView = SavedGraphView.open(new File(Paths.dep_saved_path+"/"+correlation_file))) {
+                            dependencyGraph = savedGraphView.toDependencyGraph();
+                        }
+                        //String nameCorr = CorrelationNameSelected.split("-")[1].split("\\.")[0];
+                        JMeterAdaption.runJMeterAdaption(dependencyGraph,Paths.scripts_saved_path+"/"+filename+".jmx",correlation_file);
+                        return null;
                     }
-                    try {
 
-                        DependencyGraph dependencyGraph = DependencyGraph.parseGraphByFile(new File(Paths.dep_saved_path+"/"+correlation_selected));
-                        //String nameCorr = CorrelationNameSelected.split("-")[1].split("\\.")[0];
-                        JMeterAdaption.runJMeterAdaption(dependencyGraph,Paths.scripts_saved_path+"/"+filename+".jmx",correlation_selected);
+                    @Override
+                    protected void succeeded(Void result) {
                         correlationFrame.getScriptTable().setModel(
                                 new ScriptsTableModel(Utils.getFilesByNameAndPath(filename,Paths.scripts_saved_path))
                         );
                         JOptionPane.showMessageDialog(null,"Script created!","Success",JOptionPane.INFORMATION_MESSAGE);
-                    } catch (Exception e) {
-                        System.out.println(e.toString());
-                        JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                     }
-                 }
+                }.start(correlationFrame.getCreateScriptButton());
             }
         };
 
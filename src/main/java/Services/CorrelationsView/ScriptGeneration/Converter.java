@@ -27,10 +27,19 @@ import java.util.concurrent.TimeUnit;
  * </ol>
  *
  * <p>This class acts as an HTTP client wrapper and orchestrator
- * for the full conversion lifecycle.
+ * for the full conversion lifecycle. All the requests share the same
+ * client, with its connection pool and timeouts.
  */
 
 public class Converter {
+
+    // shared by all the requests, so that the connections to the converter are kept alive
+    private static final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .writeTimeout(60, TimeUnit.SECONDS)
+            .readTimeout(60, TimeUnit.SECONDS)
+            .build();
+
     /**
      * Main orchestration method that converts a HAR file into a JMX script.
      *
@@ -49,21 +58,29 @@ public class Converter {
      */
 
     public static void runMain (String filename, String filehar,String path) throws IOException, ParseException, InterruptedException, ParserConfigurationException, TransformerException, SAXException {
-        Response uploadResponse = UploadRequest(filehar,path+"/hars");
-        String bodyresponse = uploadResponse.body().string();
-        Response converResponse = convertRequest(bodyresponse);
-        String convertResponse = converResponse.body().string();
-        Response statusResponse = statusRequest(convertResponse);
-        String statusR = statusResponse.body().string();
+        String bodyresponse;
+        try (Response uploadResponse = UploadRequest(filehar,path+"/hars")) {
+            bodyresponse = uploadResponse.body().string();
+        }
+        String convertResponse;
+        try (Response converResponse = convertRequest(bodyresponse)) {
+            convertResponse = converResponse.body().string();
+        }
+        String statusR = status(convertResponse);
         while(!getStatus(statusR).equals("FINISHED")){
             TimeUnit.SECONDS.sleep(5);
-            statusResponse = statusRequest(convertResponse);
-            statusR = getStatus(statusResponse.body().string());
+            statusR = status(convertResponse);
         }
         String downResponse = downloadRequest(getoUrl(statusR));
         saveJMXFile(downResponse,filename);
     }
 
+    private static String status(String convertResponse) throws ParseException, IOException {
+        try (Response statusResponse = statusRequest(convertResponse)) {
+            return statusResponse.body().string();
+        }
+    }
+
     /**
      * Saves the converted JMX content to disk.
      *
@@ -101,8 +118,6 @@ public class Converter {
      * @return HTTP response containing a public token
      */
     public static Response UploadRequest(String filename, String path) throws IOException {
-        OkHttpClient client = new OkHttpClient().newBuilder()
-                .build();
         MediaType mediaType = MediaType.parse("text/plain");
         RequestBody body = new MultipartBody.Builder().setType(MultipartBody.FORM)
                 .addFormDataPart("file",filename,
@@ -137,10 +152,6 @@ public class Converter {
      */
     public static Response convertRequest (String res) throws ParseException, IOException {
         String token = getToken(res);
-        OkHttpClient client = new OkHttpClient().newBuilder()
-
-                .build();
-
         MediaType mediaType = MediaType.parse("text/plain");
 
         RequestBody body = RequestBody.create(mediaType, "");
@@ -192,8 +203,6 @@ public class Converter {
 
     public static String downloadRequest(String url) throws ParseException, IOException {
         String bodyString="";
-        OkHttpClient client = new OkHttpClient().newBuilder()
-                .build();
         Request request = new Request.Builder()
                 .url(url)
                 .method("GET",  null)
@@ -220,10 +229,6 @@ public class Converter {
      */
     public static Response statusRequest(String res) throws ParseException, IOException {
         String token = getToken(res);
-        OkHttpClient client = new OkHttpClient().newBuilder()
-
-                .build();
-
         MediaType mediaType = MediaType.parse("text/plain");
 
         //RequestBody body = RequestBody.create(mediaType, "");
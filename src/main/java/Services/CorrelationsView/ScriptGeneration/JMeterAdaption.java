@@ -15,19 +15,13 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.w3c.dom.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -41,6 +35,9 @@ import Entity.EdgeHeader;
 import Entity.EdgeQueryParam;
 import Properties.Paths;
 import Entity.EdgeBodyJSON;
+import Entity.Cookie;
+import Entity.Header;
+import Services.Dependencies.HarIndex;
 
 /**
  * Handles the adaptation of a JMeter test plan generated from a HAR conversion.
@@ -58,20 +55,65 @@ import Entity.EdgeBodyJSON;
  *
  * <p>The resulting JMX file is modified in-place or rewritten to include all
  * required configuration elements.
+ *
+ * <p>The variables collected while adapting a script belong to the instance, and
+ * {@link #runJMeterAdaption(DependencyGraph, String, String)} uses a new instance for
+ * each script, so several scripts can be generated concurrently. An instance adapts
+ * one script at a time.
  */
 
 public class JMeterAdaption {
 
 
-    private static ArrayList<variable> variables = new ArrayList<>();
-    private static Map<String,Map <Integer, TreeSet<variableWS>>> variablesWS = new HashMap<>();
-    private static Set<Integer> SaveTotalResponse = new HashSet<>();
+    private final ArrayList<variable> variables = new ArrayList<>();
+    private final Map<String,Map <Integer, TreeSet<variableWS>>> variablesWS = new HashMap<>();
+    private final Set<Integer> SaveTotalResponse = new HashSet<>();
+    private boolean json_body_templates;
+    // JSON objects extracted in variables: removed after the last sampler using them
+    private final Map<Integer, Set<String>> releasedVariables = new HashMap<>();
+    private final Set<String> pendingReleases = new LinkedHashSet<>();
+    private final Set<String> unreferencedVariables = new HashSet<>();
+
+    // Configuration and ParseContext are immutable, shared by all the replacements
+    private static final ParseContext JSON_CONTEXT = JsonPath.using(Configuration.builder()
+            .jsonProvider(new JacksonJsonNodeJsonProvider())
+            .mappingProvider(new JacksonMappingProvider())
+            .build());
+    private static final Pattern JMETER_VARIABLE = Pattern.compile("\\$\\{([^}]+)}");
 
     public static void runJMeterAdaption(DependencyGraph dependencyGraph, String filenameJmx, String filename) throws Exception {
+        runJMeterAdaption(dependencyGraph, filenameJmx, filename, false);
+    }
+
+    /**
+     * Adapts a script.
+     *
+     * @param dependencyGraph     dependency graph describing request relationships
+     * @param filenameJmx         JMX file to be modified
+     * @param filename            original HAR filename
+     * @param json_body_templates see {@link #setJsonBodyTemplates(boolean)}
+     */
+    public static void runJMeterAdaption(DependencyGraph dependencyGraph, String filenameJmx, String filename, boolean json_body_templates) throws Exception {
         JMeterAdaption ja = new JMeterAdaption();
+        ja.setJsonBodyTemplates(json_body_templates);
         ja.replaceAdaption(dependencyGraph,filenameJmx,filename);
     }
 
+    /**
+     * Chooses how a JSON body built from a whole previous response is generated.
+     *
+     * <p>By default a JSR223 pre-processor parses the saved response at each sample and sets the
+     * correlated values in it. With templates the recorded body is used instead, with the
+     * correlated values replaced by JMeter variables when the script is generated: no script runs
+     * during the test, but the other fields keep their recorded values instead of the ones of the
+     * previous response.
+     *
+     * @param json_body_templates true to generate recorded bodies with JMeter variables
+     */
+    public void setJsonBodyTemplates(boolean json_body_templates) {
+        this.json_body_templates = json_body_templates;
+    }
+
     /**
      * Creates and configures the HeaderManager used for WebSocket requests.
      *
@@ -89,51 +131,41 @@ public class JMeterAdaption {
         ((Element)headerManager).setAttribute("testclass","HeaderManager");
         ((Element)headerManager).setAttribute("testname","HTTP Header Manager");
 
-        JSONParser parser = new JSONParser();
-        try(FileReader fileReader = new FileReader(FILENAME_HAR, StandardCharsets.UTF_8))
+        HarIndex harIndex = HarIndex.of(FILENAME_HAR);
+        for (int index_entry : harIndex.getEntries(url))
         {
-            Object obj = parser.parse(fileReader);
-            JSONObject jsonObject = (JSONObject) obj;
-            JSONArray entries = (JSONArray)((JSONObject) jsonObject.get("log")).get("entries");
-            for (JSONObject item : (Iterable<JSONObject>) entries)
-            {
-                JSONObject request  = (JSONObject)item.get("request");
-                String url_request = request.get("url").toString();
-                if(url_request.equals(url))
-                {
-                    Node collectionProp = doc.createElement("collectionProp");
-                    ((Element)collectionProp).setAttribute("name","HeaderManager.headers");
-                    JSONArray headers = (JSONArray) request.get("headers");
-                    for(Object item_headers : headers) {
-                        String name = ((JSONObject)item_headers).get("name").toString();
-                        if(permissedItems.contains(name)) {
-                            Node elementProp = doc.createElement("elementProp");
-                            ((Element) elementProp).setAttribute("name", ((JSONObject) item_headers).get("name").toString());
-                            ((Element) elementProp).setAttribute("elementType", "Header");
-
-                            Node stringname = doc.createElement("stringProp");
-                            ((Element) stringname).setAttribute("name", "Header.name");
-                            stringname.setTextContent(((JSONObject) item_headers).get("name").toString());
-
-                            Node stringvalue = doc.createElement("stringProp");
-                            ((Element) stringvalue).setAttribute("name", "Header.value");
-                            stringvalue.setTextContent(((JSONObject) item_headers).get("value").toString());
-                            if ("Accept-Language".equals(name)) {
-                                stringvalue.setTextContent("it,it-IT;q=0.9,en;q=0.8,en-GB;q=0.7,en-US;q=0.6");
-                            }
-                            elementProp.appendChild(stringname);
-                            elementProp.appendChild(stringvalue);
-                            if ("Cookie".equals(((JSONObject) item_headers).get("name").toString())) {
-                                changeValueCookieHeaderParameter(stringvalue, (JSONArray) replacement.get("cookieWS"), (JSONArray) request.get("cookies"), ((JSONObject) item_headers).get("value").toString());
-                            } else {
-                                changeValueHeadersParameter(elementProp, (JSONArray) replacement.get("headers"));
-                            }
-                            collectionProp.appendChild(elementProp);
-                        }
+            HarIndex.WebSocketEntry entry = harIndex.getWebSocketEntry(index_entry);
+            if(entry == null) continue;
+            Node collectionProp = doc.createElement("collectionProp");
+            ((Element)collectionProp).setAttribute("name","HeaderManager.headers");
+            for(Header header : entry.getHeaders()) {
+                String name = header.getName();
+                if(permissedItems.contains(name)) {
+                    Node elementProp = doc.createElement("elementProp");
+                    ((Element) elementProp).setAttribute("name", name);
+                    ((Element) elementProp).setAttribute("elementType", "Header");
+
+                    Node stringname = doc.createElement("stringProp");
+                    ((Element) stringname).setAttribute("name", "Header.name");
+                    stringname.setTextContent(name);
+
+                    Node stringvalue = doc.createElement("stringProp");
+                    ((Element) stringvalue).setAttribute("name", "Header.value");
+                    stringvalue.setTextContent(header.getValue());
+                    if ("Accept-Language".equals(name)) {
+                        stringvalue.setTextContent("it,it-IT;q=0.9,en;q=0.8,en-GB;q=0.7,en-US;q=0.6");
                     }
-                    headerManager.appendChild(collectionProp);
+                    elementProp.appendChild(stringname);
+                    elementProp.appendChild(stringvalue);
+                    if ("Cookie".equals(name)) {
+                        changeValueCookieHeaderParameter(stringvalue, (JSONArray) replacement.get("cookieWS"), entry.getCookies(), header.getValue());
+                    } else {
+                        changeValueHeadersParameter(elementProp, (JSONArray) replacement.get("headers"));
+                    }
+                    collectionProp.appendChild(elementProp);
                 }
             }
+            headerManager.appendChild(collectionProp);
         }
         return headerManager;
     }
@@ -161,24 +193,14 @@ public class JMeterAdaption {
      * Appends CSV configuration elements required by dependency resolution.
      *
      * @param doc       XML document being modified
-     * @param threads   thread groups where CSV configs are added
+     * @param hash      hash tree of the thread group where CSV configs are added
      * @param csv_deps  list of CSV dependency definitions
      */
 
-    private void appendCSVConfig(Document doc, NodeList threads, List<CSVNode>csv_deps) {
-
-        for(int i=0;i<threads.getLength();i++) {
-            Node thread = threads.item(i);
-            Node hash = thread.getNextSibling().getNextSibling();
-            if(hash.getNodeType()==Node.ELEMENT_NODE) {
-                if(hash.getNodeName().equals("hashTree")) {
-                    Node firstChild = hash.getFirstChild();
-                    for(CSVNode csvNode : csv_deps) {
-                        hash.insertBefore(createCSVDataSetConfigElement(doc,csvNode), firstChild);
-                        hash.insertBefore(doc.createElement("hashTree"), firstChild);
-                    }
-                }
-            }
+    private void appendCSVConfig(Document doc, Node hash, List<CSVNode>csv_deps) {
+        for(CSVNode csvNode : csv_deps) {
+            hash.appendChild(createCSVDataSetConfigElement(doc,csvNode));
+            hash.appendChild(doc.createElement("hashTree"));
         }
     }
     /**
@@ -443,58 +465,68 @@ public class JMeterAdaption {
         addRegExtractor(doc, hashTree,variable_names,path_expression,default_value);
     }
     /**
-     * Disables the default HeaderManager in the JMX document.
+     * Applies all adaptation rules to the JMX file based on the dependency graph.
      *
-     * @param doc XML document being modified
+     * <p>The file is rewritten in a single streaming pass by {@link JmxStreamRewriter}: only one
+     * HTTP sampler with its hash tree is held in memory at a time, so large test plans are adapted
+     * in bounded memory. The file is written to a temporary file first, as {@code FILENAME_JMX}
+     * may be the saved script itself.
+     *
+     * @param dependencyGraph dependency graph describing request relationships
+     * @param FILENAME_JMX     JMX file to be modified
+     * @param filename         original HAR filename
      */
-    private void disableHeaderManager(Document doc) {
-        NodeList listofHeaderManager = doc.getElementsByTagName("HeaderManager");
-        System.out.println(listofHeaderManager.getLength());
-        Node item  = listofHeaderManager.item(0);
-        ((Element)item).setAttribute("enabled","false");
+    public void replaceAdaption(DependencyGraph dependencyGraph, String FILENAME_JMX,String filename) throws  Exception{
+        variables.clear();
+        variablesWS.clear();
+        SaveTotalResponse.clear();
+        computeVariableLifetimes(dependencyGraph);
+        List<CSVNode> csv_dependencies = dependencyGraph.getCSVNodeDependencies();
+        JmxStreamRewriter rewriter = new JmxStreamRewriter(
+                (doc, http, i) -> adaptHttpNode(doc, http, i, dependencyGraph),
+                (doc, hash) -> appendCSVConfig(doc, hash, csv_dependencies));
+        String out_filename = filename.substring(0,filename.indexOf("."));
+        java.nio.file.Path output = java.nio.file.Paths.get(Paths.scripts_saved_path, out_filename + ".jmx");
+        java.nio.file.Path temp = java.nio.file.Paths.get(output + ".tmp");
+        try (InputStream is = new BufferedInputStream(new FileInputStream(FILENAME_JMX));
+             OutputStream os = new BufferedOutputStream(Files.newOutputStream(temp)))
+        {
+            rewriter.rewrite(is, os);
+        }
+        catch (Exception e)
+        {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
     }
 
     /**
-     * Applies all adaptation rules to the JMX file based on the dependency graph.
+     * Applies the replacements and extractors of a request to its HTTP sampler.
      *
+     * @param doc             XML document creating the nodes
+     * @param http            HTTP sampler node, followed by its hash tree
+     * @param i               index of the request
      * @param dependencyGraph dependency graph describing request relationships
-     * @param FILENAME_JMX     JMX file to be modified
-     * @param filename         original HAR filename
      */
-    public void replaceAdaption(DependencyGraph dependencyGraph, String FILENAME_JMX,String filename) throws  Exception{
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        try (InputStream is = new FileInputStream(FILENAME_JMX))
+    private void adaptHttpNode(Document doc, Node http, int i, DependencyGraph dependencyGraph) throws Exception {
+        if(i == 0)
         {
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document doc = db.parse(is);
-            disableHeaderManager(doc);
-            NodeList listOfHttp = doc.getElementsByTagName("HTTPSamplerProxy");
-            NodeList threadsGroup = doc.getElementsByTagName("ThreadGroup");
-            List<CSVNode> csv_dependencies = dependencyGraph.getCSVNodeDependencies();
-            appendCSVConfig(doc,threadsGroup,csv_dependencies);
             //check addRegExpr http[0]
-            Node http0 = listOfHttp.item(0);
-            if(http0.getNodeType() == Node.ELEMENT_NODE)
-            {
-                MyNode first_node = dependencyGraph.getNodeByIndex(0);
-                List<Edge> dependencies = dependencyGraph.getDependenciesByNode(first_node);
-                List<Object> dependenciesbyfirstnode = dependencyGraph.getDependenciesToExtractToFromNode(first_node,0);
-                analizeHttpNode(doc,http0,dependencies);
-                if(!dependenciesbyfirstnode.isEmpty()) {
-                    addRegExtractorMain(doc,http0,dependenciesbyfirstnode,0);
-                }
+            MyNode first_node = dependencyGraph.getNodeByIndex(0);
+            List<Edge> dependencies = dependencyGraph.getDependenciesByNode(first_node);
+            List<Object> dependenciesbyfirstnode = referencedDependencies(dependencyGraph.getDependenciesToExtractToFromNode(first_node,0),0);
+            analizeHttpNode(doc,http,dependencies);
+            if(!dependenciesbyfirstnode.isEmpty()) {
+                addRegExtractorMain(doc,http,dependenciesbyfirstnode,0);
             }
-            for (int i = 1; i < listOfHttp.getLength(); i++)
-            {
-                Node http = listOfHttp.item(i);
-                Node parent = http.getParentNode();
-                Node nextSibling = http.getNextSibling();
-                String  url = http.getAttributes().getNamedItem("testname").getTextContent();
-                System.out.println("["+i+"]"+url);
-                if (http.getNodeType() == Node.ELEMENT_NODE)
-                {
-                    if(url.startsWith("wss")|| url.startsWith("ws"))
-                    {
+            appendReleaseVariables(doc,http,0);
+            return;
+        }
+        String  url = http.getAttributes().getNamedItem("testname").getTextContent();
+        System.out.println("["+i+"]"+url);
+        if(url.startsWith("wss")|| url.startsWith("ws"))
+        {
                         /*http.getParentNode().removeChild(http);
 
                         Node genericControllerWSSRequest = doc.createElement("GenericController");
@@ -518,35 +550,143 @@ public class JMeterAdaption {
                         appendRequestsAndResponsesMessage(doc,hash,url,(JSONObject)replacements.get(i-1),i,FILENAME_HAR);
                         appendCloseWssConnection(doc,hash);
                         */
-                    }
-                    else
-                    {
-                        MyNode node = dependencyGraph.getNodeByIndex(i);
-                        //System.out.println("REPLACEMENT ["+(i-1)+"]");
-                        List<Edge> dependencies = dependencyGraph.getDependenciesByNode(node);
-                        List<Object> dependentByMe = dependencyGraph.getDependenciesToExtractToFromNode(node,i);
-                        //System.out.println(replacements.get(i-1));
-                        analizeHttpNode(doc,http,dependencies);
-                        if (!dependentByMe.isEmpty())
-                        {
-                            addRegExtractorMain(doc,http,dependentByMe,i);
-                        }
-                        /*if(checkTotalSaveResponse(i)) {
-                            addPostProcessorSaveAllResponse(doc,http,i);
-                        }*/
-                    }
-                }
-            }
-            String out_filename = filename.substring(0,filename.indexOf("."));
-            try(FileOutputStream outputStream = new FileOutputStream(Paths.scripts_saved_path+"/"+out_filename+".jmx"))
-            {
-                writeXml(doc,outputStream);
-            }catch(Exception e)
+            // variables whose last reader is the WebSocket request are released after it as well
+            appendReleaseVariables(doc,http,i);
+        }
+        else
+        {
+            MyNode node = dependencyGraph.getNodeByIndex(i);
+            //System.out.println("REPLACEMENT ["+(i-1)+"]");
+            List<Edge> dependencies = dependencyGraph.getDependenciesByNode(node);
+            List<Object> dependentByMe = referencedDependencies(dependencyGraph.getDependenciesToExtractToFromNode(node,i),i);
+            //System.out.println(replacements.get(i-1));
+            analizeHttpNode(doc,http,dependencies);
+            if (!dependentByMe.isEmpty())
             {
-                e.printStackTrace();
+                addRegExtractorMain(doc,http,dependentByMe,i);
             }
+            appendReleaseVariables(doc,http,i);
+            /*if(checkTotalSaveResponse(i)) {
+                addPostProcessorSaveAllResponse(doc,http,i);
+            }*/
         }
     }
+
+    /**
+     * Computes when the JSON objects extracted in variables are no longer needed.
+     *
+     * <p>An object of a response is saved in the variable {@code <name>_<index>} by its request and
+     * read by the requests of the {@link EdgeBodyJSON} edges from it. Each thread keeps its
+     * variables for the whole iteration, so the variable is removed by the last of those requests,
+     * see {@link #appendReleaseVariables(Document, Node, int)}. The whole response saved for a body
+     * generated as a template is not read at all, and is not extracted.
+     *
+     * @param dependencyGraph dependency graph describing request relationships
+     */
+    private void computeVariableLifetimes(DependencyGraph dependencyGraph) {
+        releasedVariables.clear();
+        pendingReleases.clear();
+        unreferencedVariables.clear();
+        Map<String, Integer> last_consumer = new HashMap<>();
+        for (Edge edge : dependencyGraph.edges) {
+            if (!edge.getClass().equals(EdgeBodyJSON.class) || ((EdgeBodyJSON) edge).structuredObject == null) {
+                continue;
+            }
+            EdgeBodyJSON edgeBodyJSON = (EdgeBodyJSON) edge;
+            String variable = edgeBodyJSON.structuredObject.name + "_" + edgeBodyJSON.from_index;
+            if (json_body_templates && edgeBodyJSON.name.equals("All")
+                    && IsDipendentFromPreviousAllResponse(dependencyGraph.getDependenciesByNode(edgeBodyJSON.to)).size() > 1) {
+                unreferencedVariables.add(variable);
+                continue;
+            }
+            // the dependencies of a node are applied to all its requests
+            int last = edgeBodyJSON.to_index;
+            for (int index : edgeBodyJSON.to.getIndexs()) {
+                last = Math.max(last, index);
+            }
+            last_consumer.merge(variable, last, Math::max);
+        }
+        unreferencedVariables.removeAll(last_consumer.keySet());
+        for (Map.Entry<String, Integer> entry : last_consumer.entrySet()) {
+            releasedVariables.computeIfAbsent(entry.getValue(), k -> new TreeSet<>()).add(entry.getKey());
+        }
+    }
+
+    /**
+     * Removes from the objects to extract by a request the ones that no request reads.
+     *
+     * @param dependencies objects to extract, see {@link DependencyGraph#getDependenciesToExtractToFromNode}
+     * @param index        index of the request
+     * @return the objects read by other requests
+     */
+    private List<Object> referencedDependencies(List<Object> dependencies, int index) {
+        if (unreferencedVariables.isEmpty()) {
+            return dependencies;
+        }
+        List<Object> referenced = new ArrayList<>();
+        for (Object object : dependencies) {
+            if (!object.getClass().equals(StructuredObject.class)
+                    || !unreferencedVariables.contains(((StructuredObject) object).name + "_" + index)) {
+                referenced.add(object);
+            }
+        }
+        return referenced;
+    }
+
+    /**
+     * Adds a post-processor removing the JSON object variables whose last reader is the sampler,
+     * and the body built for it by a pre-processor.
+     *
+     * @param doc   XML document being modified
+     * @param http  HTTP sampler node
+     * @param index request index
+     */
+    private void appendReleaseVariables(Document doc, Node http, int index) {
+        Set<String> released = new LinkedHashSet<>(releasedVariables.getOrDefault(index, Collections.emptySet()));
+        released.addAll(pendingReleases);
+        pendingReleases.clear();
+        if (released.isEmpty()) {
+            return;
+        }
+        Node hashTree = http.getNextSibling().getNextSibling();
+        Node postProcessor = doc.createElement("JSR223PostProcessor");
+        ((Element)postProcessor).setAttribute("guiclass","TestBeanGUI");
+        ((Element)postProcessor).setAttribute("testclass","JSR223PostProcessor");
+        ((Element)postProcessor).setAttribute("testname","Release saved responses");
+        ((Element)postProcessor).setAttribute("enabled","true");
+
+        Node scriptLenguage = doc.createElement("stringProp");
+        ((Element)scriptLenguage).setAttribute("name","scriptLanguage");
+        scriptLenguage.setTextContent("groovy");
+
+        Node parameters = doc.createElement("stringProp");
+        ((Element)parameters).setAttribute("name","parameters");
+        parameters.setTextContent("");
+
+        Node filename = doc.createElement("stringProp");
+        ((Element)filename).setAttribute("name","filename");
+        filename.setTextContent("");
+
+        Node cackeKey = doc.createElement("stringProp");
+        ((Element)cackeKey).setAttribute("name","cacheKey");
+        cackeKey.setTextContent("true");
+
+        StringBuilder scriptString = new StringBuilder();
+        for (String variable : released) {
+            scriptString.append("vars.remove(").append(groovyString(variable)).append(")\n");
+        }
+        Node script = doc.createElement("stringProp");
+        ((Element)script).setAttribute("name","script");
+        script.setTextContent(scriptString.toString());
+
+        postProcessor.appendChild(scriptLenguage);
+        postProcessor.appendChild(parameters);
+        postProcessor.appendChild(filename);
+        postProcessor.appendChild(cackeKey);
+        postProcessor.appendChild(script);
+        hashTree.appendChild(postProcessor);
+        hashTree.appendChild(doc.createElement("hashTree"));
+    }
 //}
 
     /**
@@ -623,21 +763,6 @@ public class JMeterAdaption {
         hashTree.appendChild(postProcessor);
 
     }
-    /**
-     * Writes the modified XML document to the provided output stream.
-     *
-     * @param doc    XML document to write
-     * @param output destination output stream
-     */
-    private void writeXml(Document doc, OutputStream output) throws Exception {
-        doc.getDocumentElement().normalize();
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT,"yes");
-        DOMSource source = new DOMSource(doc);
-        StreamResult result = new StreamResult(output);
-        transformer.transform(source,result);
-    }
     /**
      * Adds a regular expression extractor to the specified sampler.
      *
@@ -844,7 +969,7 @@ public class JMeterAdaption {
                                             {
                                                 String data = stringProp.getTextContent();
                                                 List<EdgeBodyJSON> list = IsDipendentFromPreviousAllResponse(dependencies);
-                                                if(list!=null) {
+                                                if(list!=null && (list.size()==1 || !json_body_templates)) {
                                                     if (list.size()==1){
                                                         EdgeBodyJSON isDipFromPrevResp = list.get(0);
                                                         String name = isDipFromPrevResp.structuredObject.name;
@@ -856,13 +981,22 @@ public class JMeterAdaption {
                                                     }
                                                 }
                                                 else {
+                                                    // the bodies of the edges are the body of this request, parsed once
+                                                    String parsedString = null;
+                                                    JSONObject jsonObject = null;
                                                     for (Edge edge : dependencies) {
                                                         if(edge.getClass().equals(EdgeBodyJSON.class))
                                                         {
                                                             EdgeBodyJSON edgeBodyJSON = (EdgeBodyJSON)edge;
-                                                            JSONParser parser = new JSONParser();
+                                                            if(edgeBodyJSON.structuredObject!= null && edgeBodyJSON.name.equals("All")) {
+                                                                // template of the whole previous response, see setJsonBodyTemplates
+                                                                continue;
+                                                            }
                                                             String jsonString = edgeBodyJSON.to.request.getPostData().getText();
-                                                            JSONObject jsonObject = (JSONObject) parser.parse(jsonString);
+                                                            if(!jsonString.equals(parsedString)) {
+                                                                jsonObject = (JSONObject) new JSONParser().parse(jsonString);
+                                                                parsedString = jsonString;
+                                                            }
                                                             String xpath = findJsonPathRecursive(jsonObject,edgeBodyJSON.name,"$");
 
                                                             if(edgeBodyJSON.dependency!=null){ // CASO ATOMICOBJECT
@@ -926,60 +1060,58 @@ public class JMeterAdaption {
         Node script = doc.createElement("stringProp");
         ((Element)script).setAttribute("name","script");
 
-        String scriptString = "import com.jayway.jsonpath.JsonPath\n"+
-        "import com.jayway.jsonpath.DocumentContext\n";
+        // the paths are compiled once and shared by the threads in props, the saved response is
+        // parsed once per sample; values are read from vars since the compiled script is cached
+        String index_request = String.valueOf(listEdgeBodyJSON.get(0).to.indexs);
+        StringBuilder paths = new StringBuilder();
+        StringBuilder values = new StringBuilder();
         // get previous the index of the request we're extracting all the response
         int previous_all_req_index=0;
-        for(Edge edge : listEdgeBodyJSON) {
-            if(edge.getClass().equals(EdgeBodyJSON.class)){
-                EdgeBodyJSON edgeBodyJSON = (EdgeBodyJSON) edge;
-                if ( edgeBodyJSON.structuredObject!= null && edgeBodyJSON.name.equals("All")){
-                    previous_all_req_index = edgeBodyJSON.from_index;
-                }
+        String parsedString = null;
+        JSONObject jsonObject = null;
+        for(EdgeBodyJSON edgeBodyJSON : listEdgeBodyJSON) {
+            if ( edgeBodyJSON.structuredObject!= null && edgeBodyJSON.name.equals("All")){
+                previous_all_req_index = edgeBodyJSON.from_index;
+                continue;
             }
-        }
-        scriptString+="def originalJson = vars.get(\"All_"+previous_all_req_index+"\")\n"+
-                "DocumentContext jsonDoc = JsonPath.parse(originalJson)\n"+
-                "def substitutions = [\n";
-        for (Edge edge : listEdgeBodyJSON){
-            if (edge.getClass().equals(EdgeBodyJSON.class)){
-                EdgeBodyJSON edgeBodyJSON = (EdgeBodyJSON)edge;
-                if (!edgeBodyJSON.name.equals("All"))
-                {
-                    JSONParser parser = new JSONParser();
-                    String jsonString = edgeBodyJSON.to.request.getPostData().getText();
-                    JSONObject jsonObject = (JSONObject) parser.parse(jsonString);
-                    String xpath_array = findJsonPathRecursive(jsonObject,edgeBodyJSON.name,"$");
-                    String xpath = convertBracketJsonPathToDotNotation(xpath_array);
-                    System.out.println(xpath);
-
-                    if(!edgeBodyJSON.dependency.value.equals("manually_inserted") && !edgeBodyJSON.dependency.value.equals("manually_csv"))
-                    {
-                        if(edgeBodyJSON.structuredObject!=null){
-                            System.out.println(edgeBodyJSON.structuredObject);
-                            scriptString+="[path:\'"+xpath+"\', newValue:\'${"+edgeBodyJSON.structuredObject.name+"_"+edgeBodyJSON.from_index+"}\'],\n";
-                        }else{
-                            System.out.println(edgeBodyJSON.dependency);
-                            scriptString+="[path:\'"+xpath+"\', newValue:\'${"+edgeBodyJSON.dependency.name+"_"+edgeBodyJSON.from_index+"}\'],\n";
-                        }
-                    }
-                    else{
-                        if(edgeBodyJSON.structuredObject!=null){
-                            scriptString+="[path:\'"+xpath+"\', newValue:\'"+edgeBodyJSON.dependency.name+"\'],\n";
-                        }else{
-                            scriptString+="[path:\'"+xpath+"\', newValue:\'"+edgeBodyJSON.dependency.name+"\'],\n";
-                        }
-                    }
-                }
+            String jsonString = edgeBodyJSON.to.request.getPostData().getText();
+            if(!jsonString.equals(parsedString)) {
+                jsonObject = (JSONObject) new JSONParser().parse(jsonString);
+                parsedString = jsonString;
+            }
+            String xpath_array = findJsonPathRecursive(jsonObject,edgeBodyJSON.name,"$");
+            String xpath = convertBracketJsonPathToDotNotation(xpath_array);
+            System.out.println(xpath);
+            String value;
+            if(!edgeBodyJSON.dependency.value.equals("manually_inserted") && !edgeBodyJSON.dependency.value.equals("manually_csv")) {
+                String name = edgeBodyJSON.structuredObject!=null ? edgeBodyJSON.structuredObject.name : edgeBodyJSON.dependency.name;
+                value = "vars.get("+groovyString(name+"_"+edgeBodyJSON.from_index)+")";
+            } else {
+                value = groovyValue(edgeBodyJSON.dependency.name);
             }
+            paths.append("        JsonPath.compile(").append(groovyString(xpath)).append("),\n");
+            values.append("    ").append(value).append(",\n");
         }
-
-        scriptString+="]\n"+
-                "substitutions.each { sub ->\n" +
-                "    jsonDoc.set(sub.path, sub.newValue)\n" +
-                "}\n";
-        scriptString+="String modifiedJson = jsonDoc.jsonString()\n"+
-                "vars.put(\"modifiedBody_"+ listEdgeBodyJSON.get(0).to.indexs+"\",modifiedJson)";
+        // scripts combined in a load test share props, the key also depends on the paths
+        String pathsKey = "modifiedBody_"+index_request+"_paths_"+Integer.toHexString(paths.toString().hashCode());
+        String scriptString = "import com.jayway.jsonpath.JsonPath\n"+
+                "import com.jayway.jsonpath.DocumentContext\n"+
+                "def paths = props.get("+groovyString(pathsKey)+")\n"+
+                "if (paths == null) {\n"+
+                "    paths = [\n"+
+                paths+
+                "    ]\n"+
+                "    props.put("+groovyString(pathsKey)+", paths)\n"+
+                "}\n"+
+                "def values = [\n"+
+                values+
+                "]\n"+
+                "DocumentContext jsonDoc = JsonPath.parse(vars.get(\"All_"+previous_all_req_index+"\"))\n"+
+                "paths.eachWithIndex { path, i ->\n"+
+                "    jsonDoc.set(path, values[i])\n"+
+                "}\n"+
+                "vars.put(\"modifiedBody_"+index_request+"\", jsonDoc.jsonString())";
+        pendingReleases.add("modifiedBody_"+index_request);
         script.setTextContent(scriptString);
         preProcessor.appendChild(scriptLenguage);
         preProcessor.appendChild(parameters);
@@ -990,6 +1122,25 @@ public class JMeterAdaption {
         hashTree.appendChild(preProcessor);
     }
 
+    /**
+     * Quotes a string as a Groovy single-quoted literal.
+     */
+    private static String groovyString(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'").replace("\n", "\\n").replace("\r", "\\r") + "'";
+    }
+
+    /**
+     * Returns the Groovy expression of a value inserted by the tester: a JMeter variable reference
+     * such as {@code ${in}} is read from vars at each sample, anything else is a literal.
+     */
+    private static String groovyValue(String value) {
+        Matcher matcher = JMETER_VARIABLE.matcher(value);
+        if (matcher.matches()) {
+            return "vars.get(" + groovyString(matcher.group(1)) + ")";
+        }
+        return groovyString(value);
+    }
+
     private List<EdgeBodyJSON> IsDipendentFromPreviousAllResponse(List<Edge> dependencies) {
         List<EdgeBodyJSON> res = new ArrayList<EdgeBodyJSON>();
         Boolean found = false;
@@ -1012,12 +1163,7 @@ public class JMeterAdaption {
         System.out.println("XPath: " + xpath);
         System.out.println("Data: " + data);
         try {
-            final Configuration configuration = Configuration.builder()
-                    .jsonProvider(new JacksonJsonNodeJsonProvider())
-                    .mappingProvider(new JacksonMappingProvider())
-                    .build();
-
-            JsonNode updatedJson = JsonPath.using(configuration).parse(data).set(xpath, value).json();
+            JsonNode updatedJson = JSON_CONTEXT.parse(data).set(xpath, value).json();
             return updatedJson.toString();
         } catch (Exception e) {
             e.printStackTrace();
@@ -1174,11 +1320,11 @@ public class JMeterAdaption {
     }
 
 
-    public void changeValueCookieHeaderParameter(Node stringvalue, JSONArray cookiesReplacements, JSONArray cookies ,String value)
+    public void changeValueCookieHeaderParameter(Node stringvalue, JSONArray cookiesReplacements, Cookie[] cookies ,String value)
     {
-        for(Object item_cookies : cookies) {
-            String name_item_cookies = ((JSONObject)item_cookies).get("name").toString();
-            String value_item_cookies = ((JSONObject)item_cookies).get("value").toString();
+        for(Cookie item_cookies : cookies) {
+            String name_item_cookies = item_cookies.getName();
+            String value_item_cookies = item_cookies.getValue();
             for(Object item_repCookie: cookiesReplacements) {
                 String name_item_repCookie = ((JSONObject)item_repCookie).get("name").toString();
                 String value_item_repCookie = ((JSONObject)item_repCookie).get("value").toString();
@@ -1341,34 +1487,23 @@ public class JMeterAdaption {
     }
 
     private void appendRequestsAndResponsesMessage(Document doc, Node hashTree, String url, JSONObject replacement,int index_request_har,String FILENAME_HAR) {
-        JSONParser parser = new JSONParser();
-        try(FileReader fileReader = new FileReader(FILENAME_HAR, StandardCharsets.UTF_8)) {
-            Object obj = parser.parse(fileReader);
-            JSONObject jsonObject = (JSONObject) obj;
-            JSONArray entries = (JSONArray) ((JSONObject) jsonObject.get("log")).get("entries");
-            int index_actual_requst = 0;
-            for (JSONObject item : (Iterable<JSONObject>) entries) {
-                JSONObject request = (JSONObject) item.get("request");
-                String url_request = request.get("url").toString();
-                if (url_request.equals(url)&& index_request_har==index_actual_requst) {
-                    JSONArray messages =(JSONArray) item.get("_webSocketMessages");
-                    int index_request = 0;
-                    for(int i=0; i< messages.size();i++) {
-                        JSONObject message = (JSONObject) messages.get(i);
-                        String type = message.get("type").toString();
-                        if("request".equals(type)) {
-                            appendRequestAndResponse(doc,hashTree,message,replacement,index_request,url);
-                            index_request++;
-                        }
+        try {
+            HarIndex harIndex = HarIndex.of(FILENAME_HAR);
+            HarIndex.WebSocketEntry entry = harIndex.getWebSocketEntry(index_request_har);
+            if (entry != null && harIndex.getUrl(index_request_har).equals(url)) {
+                int index_request = 0;
+                for (HarIndex.Message message : entry.getMessages()) {
+                    if ("request".equals(message.getType())) {
+                        appendRequestAndResponse(doc,hashTree,message.getData(),replacement,index_request,url);
+                        index_request++;
                     }
                 }
-                index_actual_requst++;
             }
         }catch (Exception e) {System.out.println(e);}
     }
 
 
-    private void appendRequestAndResponse(Document doc, Node hashTree, JSONObject message, JSONObject replacement, int index,String url) {
+    private void appendRequestAndResponse(Document doc, Node hashTree, String data, JSONObject replacement, int index,String url) {
         Node genericControllerRequest = doc.createElement("GenericController");
         ((Element)genericControllerRequest).setAttribute("guiclass","LogicControllerGui");
         ((Element)genericControllerRequest).setAttribute("testclass","GenericController");
@@ -1409,7 +1544,6 @@ public class JMeterAdaption {
 
         Node requestData = doc.createElement("stringProp");
         ((Element)requestData).setAttribute("name","requestData");
-        String data =(String)message.get("data");
         requestData.setTextContent(replacementsInWSRequestData(data,replacement,index));
 
         Node newConnection = doc.createElement("boolProp");
@@ -0,0 +1,350 @@
+package Services.CorrelationsView.ScriptGeneration;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streaming rewrite of a JMX test plan, used by {@link JMeterAdaption}.
+ *
+ * <p>The plan is copied from a StAX reader to a StAX writer in a single pass. Only the elements
+ * that are adapted are loaded in memory, as small DOM fragments:
+ * <ul>
+ *     <li>each {@code HTTPSamplerProxy}, with the {@code hashTree} following it, is passed to the
+ *     {@link SamplerAdaption} with its index in the plan, then written;</li>
+ *     <li>the nodes added by the {@link ThreadGroupAdaption} are written at the start of the
+ *     {@code hashTree} following each {@code ThreadGroup};</li>
+ *     <li>the first {@code HeaderManager} of the plan is disabled.</li>
+ * </ul>
+ * Memory is bounded by the largest sampler instead of the whole plan. The rest of the plan,
+ * whitespace included, is copied as it is; new elements are indented on their own lines.
+ */
+class JmxStreamRewriter {
+
+    /**
+     * Adaption of a single HTTP sampler.
+     */
+    interface SamplerAdaption {
+        /**
+         * @param doc   document creating the nodes of the fragment
+         * @param http  the {@code HTTPSamplerProxy} element; its next sibling but one is its
+         *              {@code hashTree}, as in the whole plan
+         * @param index index of the sampler in the plan, which is the index of its request
+         */
+        void adapt(Document doc, Element http, int index) throws Exception;
+    }
+
+    /**
+     * Elements added to every thread group.
+     */
+    interface ThreadGroupAdaption {
+        /**
+         * @param doc      document creating the nodes
+         * @param hashTree empty element to which the nodes to add are appended
+         */
+        void adapt(Document doc, Node hashTree) throws Exception;
+    }
+
+    private static final String INDENT = "  ";
+
+    private final SamplerAdaption samplerAdaption;
+    private final ThreadGroupAdaption threadGroupAdaption;
+    private final Document doc;
+
+    private XMLEventReader reader;
+    private XMLStreamWriter writer;
+    private int depth;
+    private int sampler_index;
+    private boolean header_manager_disabled;
+
+    JmxStreamRewriter(SamplerAdaption samplerAdaption, ThreadGroupAdaption threadGroupAdaption) throws ParserConfigurationException {
+        this.samplerAdaption = samplerAdaption;
+        this.threadGroupAdaption = threadGroupAdaption;
+        this.doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    }
+
+    /**
+     * Rewrites a test plan.
+     *
+     * @param in  the JMX test plan
+     * @param out destination of the adapted test plan, in UTF-8
+     * @return number of HTTP samplers found
+     */
+    int rewrite(InputStream in, OutputStream out) throws Exception {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        reader = inputFactory.createXMLEventReader(in);
+        writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+        depth = 0;
+        sampler_index = 0;
+        header_manager_disabled = false;
+        boolean after_thread_group = false;
+        try {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartDocument()) {
+                    writer.writeStartDocument("UTF-8", "1.0");
+                    writer.writeCharacters("\n");
+                } else if (event.isStartElement()) {
+                    StartElement start = event.asStartElement();
+                    String name = start.getName().getLocalPart();
+                    if (name.equals("HTTPSamplerProxy")) {
+                        rewriteSampler(start);
+                    } else if (name.equals("hashTree") && after_thread_group) {
+                        Node hashTree = doc.createElement("hashTree");
+                        threadGroupAdaption.adapt(doc, hashTree);
+                        writeStart(start, false, false);
+                        depth++;
+                        writeChildren(hashTree, true, false);
+                    } else {
+                        boolean disable = name.equals("HeaderManager") && !header_manager_disabled;
+                        header_manager_disabled |= disable;
+                        boolean empty = reader.peek() != null && reader.peek().isEndElement();
+                        writeStart(start, empty, disable);
+                        if (empty) {
+                            reader.nextEvent();
+                        } else {
+                            depth++;
+                        }
+                    }
+                    after_thread_group = false;
+                } else if (event.isEndElement()) {
+                    writer.writeEndElement();
+                    depth--;
+                    after_thread_group = event.asEndElement().getName().getLocalPart().equals("ThreadGroup");
+                } else {
+                    copy(event);
+                }
+            }
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+        return sampler_index;
+    }
+
+    /**
+     * Loads a sampler and its hash tree, adapts them and writes them.
+     */
+    private void rewriteSampler(StartElement start) throws Exception {
+        DocumentFragment fragment = doc.createDocumentFragment();
+        Element http = readElement(start);
+        fragment.appendChild(http);
+        List<XMLEvent> between = new ArrayList<>();
+        while (reader.peek() != null && !reader.peek().isStartElement() && !reader.peek().isEndElement()) {
+            between.add(reader.nextEvent());
+        }
+        boolean has_hash_tree = reader.peek() != null && reader.peek().isStartElement()
+                && reader.peek().asStartElement().getName().getLocalPart().equals("hashTree");
+        if (has_hash_tree) {
+            for (XMLEvent event : between) {
+                Node node = toNode(event);
+                if (node != null) {
+                    fragment.appendChild(node);
+                }
+            }
+            fragment.appendChild(readElement(reader.nextEvent().asStartElement()));
+        }
+        samplerAdaption.adapt(doc, http, sampler_index++);
+        if (!header_manager_disabled) {
+            for (Node node = fragment.getFirstChild(); node != null && !header_manager_disabled; node = node.getNextSibling()) {
+                if (node.getNodeType() == Node.ELEMENT_NODE) {
+                    NodeList headerManagers = ((Element) node).getElementsByTagName("HeaderManager");
+                    if (headerManagers.getLength() > 0) {
+                        ((Element) headerManagers.item(0)).setAttribute("enabled", "false");
+                        header_manager_disabled = true;
+                    }
+                }
+            }
+        }
+        writeChildren(fragment, false, false);
+        if (!has_hash_tree) {
+            for (XMLEvent event : between) {
+                copy(event);
+            }
+        }
+    }
+
+    private Element readElement(StartElement start) throws XMLStreamException {
+        Element element = createElement(start);
+        Node current = element;
+        while (current != null) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                Element child = createElement(event.asStartElement());
+                current.appendChild(child);
+                current = child;
+            } else if (event.isEndElement()) {
+                current = current == element ? null : current.getParentNode();
+            } else {
+                Node node = toNode(event);
+                if (node != null) {
+                    current.appendChild(node);
+                }
+            }
+        }
+        return element;
+    }
+
+    private Element createElement(StartElement start) {
+        Element element = doc.createElement(qualifiedName(start.getName().getPrefix(), start.getName().getLocalPart()));
+        for (Iterator<Attribute> attributes = start.getAttributes(); attributes.hasNext(); ) {
+            Attribute attribute = attributes.next();
+            element.setAttribute(qualifiedName(attribute.getName().getPrefix(), attribute.getName().getLocalPart()), attribute.getValue());
+        }
+        return element;
+    }
+
+    private Node toNode(XMLEvent event) {
+        switch (event.getEventType()) {
+            case XMLEvent.CHARACTERS:
+            case XMLEvent.SPACE:
+                return doc.createTextNode(event.asCharacters().getData());
+            case XMLEvent.CDATA:
+                return doc.createCDATASection(event.asCharacters().getData());
+            case XMLEvent.COMMENT:
+                return doc.createComment(((javax.xml.stream.events.Comment) event).getText());
+            default:
+                return null;
+        }
+    }
+
+    private static String qualifiedName(String prefix, String local_name) {
+        return prefix == null || prefix.isEmpty() ? local_name : prefix + ":" + local_name;
+    }
+
+    private void copy(XMLEvent event) throws XMLStreamException {
+        switch (event.getEventType()) {
+            case XMLEvent.CHARACTERS:
+            case XMLEvent.SPACE:
+                writer.writeCharacters(event.asCharacters().getData());
+                break;
+            case XMLEvent.CDATA:
+                writer.writeCData(event.asCharacters().getData());
+                break;
+            case XMLEvent.COMMENT:
+                writer.writeComment(((javax.xml.stream.events.Comment) event).getText());
+                break;
+            case XMLEvent.PROCESSING_INSTRUCTION:
+                javax.xml.stream.events.ProcessingInstruction pi = (javax.xml.stream.events.ProcessingInstruction) event;
+                writer.writeProcessingInstruction(pi.getTarget(), pi.getData());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeStart(StartElement start, boolean empty, boolean disable) throws XMLStreamException {
+        String name = qualifiedName(start.getName().getPrefix(), start.getName().getLocalPart());
+        if (empty) {
+            writer.writeEmptyElement(name);
+        } else {
+            writer.writeStartElement(name);
+        }
+        for (Iterator<Attribute> attributes = start.getAttributes(); attributes.hasNext(); ) {
+            Attribute attribute = attributes.next();
+            String attribute_name = qualifiedName(attribute.getName().getPrefix(), attribute.getName().getLocalPart());
+            if (!(disable && attribute_name.equals("enabled"))) {
+                writer.writeAttribute(attribute_name, attribute.getValue());
+            }
+        }
+        if (disable) {
+            writer.writeAttribute("enabled", "false");
+        }
+    }
+
+    /**
+     * Writes the children of a node, one element per line. Whitespace between elements is
+     * replaced by the indentation of the plan, so the elements added by the adaptions are laid
+     * out like the others; text of elements without child elements is kept as it is.
+     *
+     * @param parent     the node
+     * @param first_line whether the first element starts a new line, i.e. the parent is not a
+     *                   fragment preceded in the stream by its own whitespace
+     * @param last_line  whether the end tag of the parent is written next on its own line
+     */
+    private void writeChildren(Node parent, boolean first_line, boolean last_line) throws XMLStreamException {
+        boolean has_elements = false;
+        for (Node node = parent.getFirstChild(); node != null && !has_elements; node = node.getNextSibling()) {
+            has_elements = node.getNodeType() == Node.ELEMENT_NODE;
+        }
+        boolean line = first_line;
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (has_elements && node.getNodeType() == Node.TEXT_NODE && node.getNodeValue().trim().isEmpty()) {
+                line = true;
+                continue;
+            }
+            if (has_elements && line) {
+                newLine(depth);
+            }
+            writeNode(node);
+            line = node.getNodeType() != Node.TEXT_NODE;
+        }
+        if (has_elements && last_line) {
+            newLine(depth - 1);
+        }
+    }
+
+    private void writeNode(Node node) throws XMLStreamException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                NamedNodeMap attributes = node.getAttributes();
+                if (node.hasChildNodes()) {
+                    writer.writeStartElement(node.getNodeName());
+                } else {
+                    writer.writeEmptyElement(node.getNodeName());
+                }
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    writer.writeAttribute(attributes.item(i).getNodeName(), attributes.item(i).getNodeValue());
+                }
+                if (node.hasChildNodes()) {
+                    depth++;
+                    writeChildren(node, true, true);
+                    depth--;
+                    writer.writeEndElement();
+                }
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(node.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                writer.writeCData(node.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                writer.writeComment(node.getNodeValue());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void newLine(int level) throws XMLStreamException {
+        StringBuilder sb = new StringBuilder("\n");
+        for (int i = 0; i < level; i++) {
+            sb.append(INDENT);
+        }
+        writer.writeCharacters(sb.toString());
+    }
+}
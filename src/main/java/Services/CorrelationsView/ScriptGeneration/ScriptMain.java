@@ -2,6 +2,7 @@ package Services.CorrelationsView.ScriptGeneration;
 
 import Entity.DependencyGraph;
 import Entity.MyNode;
+import Entity.SavedGraphView;
 import Properties.Paths;
 import Services.ResponseAnalyzer.AtomicObject;
 import com.fasterxml.jackson.module.jsonSchema.types.ObjectSchema;
@@ -23,7 +24,10 @@ public class ScriptMain {
             System.out.println(e.toString());
         }
         try {
-            DependencyGraph dependencyGraph = DependencyGraph.parseGraphByFile(new File(Paths.dep_saved_path+"/"+correlation_selected));
+            DependencyGraph dependencyGraph;
+            try (SavedGraphView savedGraphView = SavedGraphView.open(new File(Paths.dep_saved_path+"/"+correlation_selected))) {
+                dependencyGraph = savedGraphView.toDependencyGraph();
+            }
             JMeterAdaption.runJMeterAdaption(dependencyGraph,Paths.scripts_saved_path+"/"+filename+".jmx",correlation_selected);
             JOptionPane.showMessageDialog(null,"Script created!","Success",JOptionPane.INFORMATION_MESSAGE);
         } catch (Exception e) {
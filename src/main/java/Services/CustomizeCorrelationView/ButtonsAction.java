@@ -3,24 +3,20 @@ package Services.CustomizeCorrelationView;
 import Entity.CheckableItem;
 import Entity.DependencyGraph;
 import Entity.Edge;
-import Entity.MyNode;
+import Entity.GraphBinaryFormat;
 import Properties.Paths;
 import Services.CustomizeCorrelationView.CSV.CSVFrameService;
-import Services.Dependencies.TypeEdgeAdaptor;
-import Services.Dependencies.TypeFromNodeAdaptor;
 import Services.Utils;
 import View.AddManuallyCorrelationPage.AddManuallyCorrelationFrame;
 import View.AddManuallyCorrelationPage.CustomCorrelationTableModel;
 import View.CorrelationsPage.CorrelationTableModel;
 import View.CustomizeCorrelationPage.CustomizeCorrelationPage;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -110,24 +106,15 @@ public class ButtonsAction {
                         for(String key : stringListMap.keySet()){
                             for(CheckableItem checkableItem : stringListMap.get(key)){
                                 if(checkableItem.isSelected()){
-                                    dependencyGraph_preferred.edges.add(checkableItem.getEdge());
+                                    dependencyGraph_preferred.addEdge(checkableItem.getEdge());
                                 }
                             }
                         }
                     }
                     String file_name = customizeCorrelationPage.getNameE2E().getText()+""+customizeCorrelationPage.getTwoPartNameE2E().getText();
-                    Gson gson= new GsonBuilder()
-                            .registerTypeAdapter(MyNode.class,new TypeFromNodeAdaptor())
-                            .registerTypeAdapter(Edge.class, new TypeEdgeAdaptor())
-                            //         .registerTypeAdapterFactory(new EdgeAdapterFactory())
-                            .create();
-                    String graph_json = gson.toJson(dependencyGraph_preferred);
                     try {
-                        FileWriter file = new FileWriter(Paths.dep_saved_path+"/"+file_name+".json");
-                        file.write(graph_json);
-                        file.flush();
-                        file.close();
-                        JOptionPane.showMessageDialog(null,"ODP correctly saved in the file named "+file_name+".json","ODP Successfully Saved!",JOptionPane.INFORMATION_MESSAGE);
+                        GraphBinaryFormat.write(dependencyGraph_preferred, new File(Paths.dep_saved_path+"/"+file_name+GraphBinaryFormat.EXTENSION));
+                        JOptionPane.showMessageDialog(null,"ODP correctly saved in the file named "+file_name+GraphBinaryFormat.EXTENSION,"ODP Successfully Saved!",JOptionPane.INFORMATION_MESSAGE);
                         correlatorHelperService.getCorrelationFrame().getCorrelationsTable().setModel(
                                 new CorrelationTableModel(Utils.getFilesByNameAndPath(customizeCorrelationPage.getNameE2E().getText(), Paths.dep_saved_path))
                         );
@@ -2,6 +2,7 @@ package Services.CustomizeCorrelationView;
 
 
 import Entity.*;
+import Services.Dependencies.HarIndex;
 import Services.ResponseAnalyzer.AtomicObject;
 import Services.ResponseAnalyzer.StructuredObject;
 import View.AddManuallyCorrelationPage.AddManuallyCorrelationFrame;
@@ -95,6 +96,8 @@ public class CustomCorrelationFrameService {
                     customCorrelationFrame.getPanel2().setVisible(false);
                 }
 
+                // urls and indexes of the nodes may have been edited in the replacement tables
+                correlatorHelperService.getDependencyGraph().reindexNodes();
                 String inputNumbers = correlatorHelperService.getDependencyGraph().getNodeByUrlandMethod(url,method).indexs.toString();
                 String numbersString= inputNumbers.substring(1,inputNumbers.length()-1);
                 String [] numberArrays = numbersString.split(",");
@@ -350,6 +353,8 @@ public class CustomCorrelationFrameService {
                 String fromComboBox = (String) addManuallyCorrelationFrame.getFromComboBox().getSelectedItem();
                 int index_from = addManuallyCorrelationFrame.getFromComboBox().getSelectedIndex();
                 boolean is_manually = addManuallyCorrelationFrame.getOptionCheckBox().isSelected();
+                // urls and indexes of the nodes may have been edited in the replacement tables
+                addManuallyCorrelationFrame.getCorrelatorHelperService().getDependencyGraph().reindexNodes();
                 MyNode from = null;
                 if(!is_manually)
                 {
@@ -694,44 +699,27 @@ public class CustomCorrelationFrameService {
 
     public static ArrayList<ArrayList<String>> getInfoReqWS(String url,int index_requestWS,String FILENAME_HAR) {
         ArrayList<ArrayList<String>> info = new ArrayList<>();
-        /*ArrayList<String> num_req = new ArrayList<>();
+        ArrayList<String> num_req = new ArrayList<>();
         ArrayList<String> data_req = new ArrayList<>();
         info.add(num_req);
         info.add(data_req);
         int index=0;
-
-        JSONParser parser = new JSONParser();
-
-        try (FileReader in = new FileReader(FILENAME_HAR, StandardCharsets.UTF_8)) {
-            Object obj = parser.parse(in);
-
-            JSONObject jsonObject = (JSONObject) obj;
-            JSONArray entries = (JSONArray) ((JSONObject) jsonObject.get("log")).get("entries");
-            Iterator<JSONObject> iterator = entries.iterator();
-            int index_num_req=0;
-            while (iterator.hasNext()) {
-                JSONObject item = iterator.next();
-                JSONObject request = (JSONObject) item.get("request");
-
-                if (url.equals(request.get("url").toString()) && index_requestWS==index_num_req) {
-                    JSONArray webSocketMessage = (JSONArray) item.get("_webSocketMessages");
-                    for (int i = 0; i < webSocketMessage.size(); i++) {
-                        JSONObject message = (JSONObject) webSocketMessage.get(i);
-                        String type = message.get("type").toString();
-                        String data = message.get("data").toString();
-                        if ("request".equals(type)) {
-                            info.get(0).add(String.valueOf(index));
-                            info.get(1).add(data);
-                            index++;
-                        }
+        try {
+            HarIndex harIndex = HarIndex.of(FILENAME_HAR);
+            HarIndex.WebSocketEntry entry = harIndex.getWebSocketEntry(index_requestWS);
+            if (entry != null && url.equals(harIndex.getUrl(index_requestWS))) {
+                for (HarIndex.Message message : entry.getMessages()) {
+                    if ("request".equals(message.getType())) {
+                        num_req.add(String.valueOf(index));
+                        data_req.add(message.getData());
+                        index++;
                     }
                 }
-                index_num_req++;
             }
-        }catch(Exception e ){}
-        */
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
         return info;
-
     }
 
 
@@ -775,78 +763,47 @@ public class CustomCorrelationFrameService {
 
     public static ArrayList<String> getFromByNumReq(ArrayList<String> list, String url, int num_req,String FILENAME_HAR) {
         ArrayList<String> new_from = new ArrayList<>(list);
-        /*JSONParser parser = new JSONParser();
         if(num_req==0) {return list;}
         int actual_req=-1;
-        try (FileReader in = new FileReader(FILENAME_HAR, StandardCharsets.UTF_8)) {
-            Object obj = parser.parse(in);
-
-            JSONObject jsonObject = (JSONObject) obj;
-            JSONArray entries = (JSONArray) ((JSONObject) jsonObject.get("log")).get("entries");
-
-            Iterator<JSONObject> iterator = entries.iterator();
-            int index_request =0;
-            while (iterator.hasNext()) {
-                JSONObject item = iterator.next();
-                JSONObject request = (JSONObject) item.get("request");
-
-                if (url.equals(request.get("url").toString())) {
-                    JSONArray webSocketMessage = (JSONArray) item.get("_webSocketMessages");
-                    for(int i=0;i<webSocketMessage.size();i++) {
-                        JSONObject message = (JSONObject) webSocketMessage.get(i);
-                        String type = message.get("type").toString();
-                        if(actual_req< num_req) {
-                            if ("request".equals(type)) {
-                                actual_req++;
-                            }
-                            else if ("response".equals(type)) {
-                                new_from.add("["+index_request+"]"+url + "_webSocketMessages[" + i + "]");
-                            }
-                        }
-                        else {return new_from;}
+        try {
+            HarIndex harIndex = HarIndex.of(FILENAME_HAR);
+            for (int index_request : harIndex.getEntries(url)) {
+                HarIndex.WebSocketEntry entry = harIndex.getWebSocketEntry(index_request);
+                if (entry == null) continue;
+                List<HarIndex.Message> messages = entry.getMessages();
+                for (int i = 0; i < messages.size(); i++) {
+                    if (actual_req >= num_req) {return new_from;}
+                    String type = messages.get(i).getType();
+                    if ("request".equals(type)) {
+                        actual_req++;
+                    } else if ("response".equals(type)) {
+                        new_from.add("["+index_request+"]"+url + "_webSocketMessages[" + i + "]");
                     }
                 }
-                index_request++;
             }
         } catch (Exception e) {
-        }*/
+            e.printStackTrace();
+        }
         return new_from;
     }
 
     public static ArrayList<String> extendsFromListWS(ArrayList<String> list, String url,String FILENAME_HAR) {
         ArrayList<String> new_from = new ArrayList<>(list);
-       /* JSONParser parser = new JSONParser();
-        try (FileReader in = new FileReader(FILENAME_HAR, StandardCharsets.UTF_8)) {
-            Object obj = parser.parse(in);
-
-            JSONObject jsonObject = (JSONObject) obj;
-            JSONArray entries = (JSONArray) ((JSONObject) jsonObject.get("log")).get("entries");
-
-            Iterator<JSONObject> iterator = entries.iterator();
-
-            int index_request=0;
-            while (iterator.hasNext()) {
-                JSONObject item = iterator.next();
-                JSONObject request = (JSONObject) item.get("request");
-
-                if (url.equals(request.get("url").toString())) {
-                    JSONArray webSocketMessage = (JSONArray) item.get("_webSocketMessages");
-                    for(int i=0;i<webSocketMessage.size();i++) {
-                        JSONObject message = (JSONObject) webSocketMessage.get(i);
-                        String type = message.get("type").toString();
-                        String data = message.get("data").toString();
-
-                        if ("response".equals(type)) {
-                            String urlnew = "["+index_request+"]"+url+"_webSocketMessages[" + i + "]";
-                            new_from.add(urlnew);
-                        }
+        try {
+            HarIndex harIndex = HarIndex.of(FILENAME_HAR);
+            for (int index_request : harIndex.getEntries(url)) {
+                HarIndex.WebSocketEntry entry = harIndex.getWebSocketEntry(index_request);
+                if (entry == null) continue;
+                List<HarIndex.Message> messages = entry.getMessages();
+                for (int i = 0; i < messages.size(); i++) {
+                    if ("response".equals(messages.get(i).getType())) {
+                        new_from.add("["+index_request+"]"+url+"_webSocketMessages[" + i + "]");
                     }
                 }
-                index_request++;
             }
         } catch (Exception e) {
+            e.printStackTrace();
         }
-        */
         return new_from;
     }
 }
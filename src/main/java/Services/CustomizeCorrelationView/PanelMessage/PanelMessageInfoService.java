@@ -1,6 +1,7 @@
 package Services.CustomizeCorrelationView.PanelMessage;
 
 import Entity.*;
+import Services.Dependencies.HarStreamReader;
 import View.CustomizeCorrelationPage.CustomizeCorrelationPage;
 import View.CustomizeCorrelationPage.PanelMessage;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -9,6 +10,8 @@ import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 
 public class PanelMessageInfoService {
 
@@ -118,7 +121,7 @@ public class PanelMessageInfoService {
                 CheckableItem checkableItem = frame.getCheckItemListsRequest().get(frame.getCurrent_request()).get(type).get(row);
                 if(!type.equals("cookie")) {
 
-                    String str_response = frame.getCorrelatorHelperApp().getHar().getLog().getEntries()[index].getResponse().getContent().getText();
+                    String str_response = responseText(frame,index);
                     if(!str_response.isEmpty())
                     {
                         Object json = new ObjectMapper().readValue(
@@ -145,7 +148,7 @@ public class PanelMessageInfoService {
                     }else{
 
                         Object json = new ObjectMapper().readValue(
-                                frame.getCorrelatorHelperApp().getHar().getLog().getEntries()[index].getResponse().getContent().getText()
+                                responseText(frame,index)
                                 , Object.class);
                         indented_response = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(json);
                         pm.getLabelResponse().setText("RESPONSE DATA OF REQUEST N° "+table.getValueAt(row,2));
@@ -153,7 +156,7 @@ public class PanelMessageInfoService {
                     }
                 }
             }
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             e.printStackTrace();}
 
         pm.getResposeTextArea().setText(indented_response);
@@ -161,6 +164,17 @@ public class PanelMessageInfoService {
     }
 
 
+    // JSON bodies are dropped from a HAR read in streaming mode once analyzed: they are read again
+    private static String responseText(CustomizeCorrelationPage frame, int index) throws IOException {
+        String text = frame.getCorrelatorHelperApp().getHar().getLog().getEntries()[index].getResponse().getContent().getText();
+        if(text == null){
+            File har_file = new File(frame.getCorrelatorHelperApp().getCorrelationFrame().getFileHAR());
+            text = HarStreamReader.readEntry(har_file, index).getResponse().getContent().getText();
+        }
+        return text;
+    }
+
+
     public static void fill_post_request_area(JTable table, CustomizeCorrelationPage frame, int row, PanelMessage pm){
         String indented_request="";
         try {
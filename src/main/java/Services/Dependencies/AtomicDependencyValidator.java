@@ -3,7 +3,6 @@ package Services.Dependencies;
 import Entity.*;
 import Services.ResponseAnalyzer.AtomicObject;
 import Services.ResponseAnalyzer.StructuredObject;
-import opennlp.tools.stemmer.PorterStemmer;
 
 import java.net.URI;
 
@@ -19,29 +18,95 @@ import java.net.URI;
  *   <li>ID completion based on short names or parent elements</li>
  *   <li>Levenshtein / LCS-based approximate matching</li>
  * </ul>
+ *
+ * <p>The validator holds no state and can be shared between threads. The stems of the names of
+ * the HAR are looked up in the {@link StemTable}; the other stems, the lowercased names and the
+ * LCS similarities are memoised in shared bounded caches, see {@link #getStemCache()},
+ * {@link #getLowerCaseCache()} and {@link #getSimilarityCache()} for their hit/miss counters.
  */
 public class AtomicDependencyValidator {
 
     private static final float lcs_deadline =0.44f;
+
+    private static final NameCache<String,String> stems = new NameCache<>(1 << 14);
+    private static final NameCache<String,String> lower_names = new NameCache<>(1 << 14);
+    private static final NameCache<NamePair,Float> similarities = new NameCache<>(1 << 16);
+
     /**
-     * Applies Porter stemming to the input string.
+     * Pair of names compared by {@link #similarity(String, String)}.
+     */
+    private static final class NamePair {
+        final String first;
+        final String second;
+
+        NamePair(String first, String second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            NamePair namePair = (NamePair) o;
+            return first.equals(namePair.first) && second.equals(namePair.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * first.hashCode() + second.hashCode();
+        }
+    }
+
+    /** @return the cache of stemmed names, with its hit/miss counters */
+    public static NameCache<String,String> getStemCache() {
+        return stems;
+    }
+
+    /** @return the cache of lowercased names, with its hit/miss counters */
+    public static NameCache<String,String> getLowerCaseCache() {
+        return lower_names;
+    }
+
+    /** @return the cache of name similarities, with its hit/miss counters */
+    public static NameCache<?,Float> getSimilarityCache() {
+        return similarities;
+    }
+
+    /**
+     * Applies Porter stemming to the input string. Names missing from the {@link StemTable}
+     * are stemmed once and cached.
      *
      * @param input string to stem
      * @return stemmed string
      */
     public String porter_stamming(String input)
     {
-        PorterStemmer porterStemmer = new PorterStemmer();
-        return porterStemmer.stem(input);
+        String stem = StemTable.get(input);
+        return stem != null ? stem : stems.get(input, StemTable::stem);
+    }
+
+    /**
+     * Returns the normalized LCS similarity of two names. Results are cached.
+     *
+     * @param first  first name
+     * @param second second name
+     * @return similarity between 0 and 1
+     * @see LCS#LCSubStr(char[], char[], int, int)
+     */
+    private static float similarity(String first, String second) {
+        return similarities.get(new NamePair(first, second),
+                pair -> LCS.LCSubStr(pair.first.toCharArray(), pair.second.toCharArray(), pair.first.length(), pair.second.length()));
     }
     /**
-     * Converts the input string to lowercase.
+     * Converts the input string to lowercase. Results are cached, the same names being compared
+     * many times.
      *
      * @param input string to convert
      * @return lowercase version of the input
      */
     public String lower_case (String input){
-        return input.toLowerCase();
+        return lower_names.get(input, String::toLowerCase);
     }
     /**
      * Completes a short ID using the parent (father) string.
@@ -107,6 +172,17 @@ public class AtomicDependencyValidator {
         return false;
     }
 
+    /**
+     * Returns the token of an {@code Authorization} header value: the value without its
+     * {@code "Bearer "} scheme, or the value itself for other schemes.
+     *
+     * @param value header value
+     * @return the token compared with the response values
+     */
+    static String authorization_token(String value){
+        return value.startsWith("Bearer ") ? value.substring("Bearer ".length()) : value;
+    }
+
     /**
      * Evaluates atomic dependency for a Header object.
      *
@@ -119,7 +195,7 @@ public class AtomicDependencyValidator {
     private boolean evaluate_header_atomic_dep(AtomicObject atomicObject, Header header, StructuredObject father,Request request){
         //special case Authorization
         if(header.getName().equals("Authorization")) {
-            String header_value = header.getValue().substring(7);
+            String header_value = authorization_token(header.getValue());
             if(atomicObject.getValue().equals(header_value)){
                 //System.out.println(atomicObject);
                 return true;
@@ -163,11 +239,11 @@ public class AtomicDependencyValidator {
         String to_lower_name = lower_case(possible_name);
         String atomic_name =  lower_case(atomicObject.getName());
         if(father!=null && !father.getName().equals("")){
-            atomic_name = id_complention(atomic_name,porter_stamming(father.getName().toLowerCase()));
+            atomic_name = id_complention(atomic_name,porter_stamming(lower_case(father.getName())));
             String to_name_stamm = porter_stamming(to_lower_name);
             //String atomic_name_stamm = porter_stamming(atomic_name);
             //int dist =  LevenshteinDistance.dist(to_name_stamm.toCharArray(),atomic_name_stamm.toCharArray());
-            float lcs = LCS.LCSubStr(to_name_stamm.toCharArray(),atomic_name.toCharArray(),to_name_stamm.length(),atomic_name.length());
+            float lcs = similarity(to_name_stamm, atomic_name);
            // if(dist <=5){
            if(lcs>=lcs_deadline){
                 //System.out.println(atomicObject);
@@ -180,7 +256,7 @@ public class AtomicDependencyValidator {
                 String atomic_name_stamm = porter_stamming(possible_fatherchild_name[i]);
                 //int dist =  LevenshteinDistance.dist(to_name_stamm.toCharArray(),atomic_name_stamm.toCharArray());
                 //if(dist <=5){
-                 float lcs = LCS.LCSubStr(to_name_stamm.toCharArray(),atomic_name_stamm.toCharArray(),to_name_stamm.length(),atomic_name_stamm.length());
+                 float lcs = similarity(to_name_stamm, atomic_name_stamm);
                  if(lcs >=lcs_deadline){
                     //System.out.println(atomicObject);
                     return true;
@@ -207,12 +283,12 @@ public class AtomicDependencyValidator {
             String to_lower_name = lower_case(to_name);
             String atomic_name = lower_case(atomicObject.getName());
             if (father != null && !father.getName().equals("")) {
-                atomic_name = id_complention(atomic_name, porter_stamming(father.getName().toLowerCase()));
+                atomic_name = id_complention(atomic_name, porter_stamming(lower_case(father.getName())));
                 String to_name_stamm = porter_stamming(to_lower_name);
                 //String atomic_name_stamm = porter_stamming(atomic_name);
                 //int dist =  LevenshteinDistance.dist(to_name_stamm.toCharArray(),atomic_name_stamm.toCharArray());
                 //if(dist <=5){
-                float lcs = LCS.LCSubStr(to_name_stamm.toCharArray(), atomic_name.toCharArray(), to_name_stamm.length(), atomic_name.length());
+                float lcs = similarity(to_name_stamm, atomic_name);
                 if (lcs >= lcs_deadline) {
                     //System.out.println(atomicObject);
                     return true;
@@ -224,7 +300,7 @@ public class AtomicDependencyValidator {
                     String atomic_name_stamm = porter_stamming(possible_fatherchild_name[i]);
                     //int dist =  LevenshteinDistance.dist(to_name_stamm.toCharArray(),atomic_name_stamm.toCharArray());
                     //if(dist <=5){
-                    float lcs = LCS.LCSubStr(to_name_stamm.toCharArray(), atomic_name_stamm.toCharArray(), to_name_stamm.length(), atomic_name_stamm.length());
+                    float lcs = similarity(to_name_stamm, atomic_name_stamm);
                     if (lcs >= lcs_deadline) {
                         //System.out.println(atomicObject);
                         return true;
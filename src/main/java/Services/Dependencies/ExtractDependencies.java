@@ -1,17 +1,27 @@
 package Services.Dependencies;
 
 import Entity.DependencyGraph;
+import Entity.Edge;
+import Entity.Entry;
 import Entity.Har;
+import Entity.Log;
 import Entity.MyNode;
 import Services.ResponseAnalyzer.ResponseAnalyzer;
+import Services.ResponseAnalyzer.ResponseIndex;
 import Services.ResponseAnalyzer.ResponseUnstructured;
 import com.google.gson.Gson;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -67,6 +77,57 @@ public class ExtractDependencies {
      */
     List<ResponseUnstructured> responseUnstructuredList;
 
+    /**
+     * Returns the value index built over the analyzed responses.
+     *
+     * @return index of the response values
+     */
+    public ResponseIndex getResponseIndex() {
+        return responseIndex;
+    }
+
+    ResponseIndex responseIndex;
+
+    /**
+     * Returns the number of threads used by the analysis phases.
+     *
+     * @return parallelism, 1 when the analysis is sequential
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used by the analysis phases.
+     *
+     * <p>With a value greater than 1 the responses are analyzed concurrently by a fixed pool of
+     * that many threads. The result does not depend on the parallelism: responses are always
+     * stored and indexed in HAR order.
+     *
+     * @param parallelism number of threads, at least 1
+     */
+    public void setParallelism(int parallelism) {
+        if(parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    int parallelism = 1;
+
+    /**
+     * Sets the listener notified while responses are analyzed and dependencies detected.
+     *
+     * <p>Both phases can be cancelled by interrupting the thread running them: they stop with a
+     * {@link CancellationException} at the next response or check.
+     *
+     * @param progressListener the listener, {@link ProgressListener#NONE} to disable notifications
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    ProgressListener progressListener = ProgressListener.NONE;
+
     /**
      * Constructs an ExtractDependencies object from a HAR file.
      *
@@ -74,37 +135,197 @@ public class ExtractDependencies {
      * @throws IOException if the file cannot be read
      */
     public ExtractDependencies(File har_file) throws IOException {
+        this(har_file, false);
+    }
+
+    /**
+     * Constructs an ExtractDependencies object from a HAR file, optionally in streaming mode.
+     *
+     * <p>In streaming mode the HAR is never held in memory as a whole: entries are read one at a
+     * time by {@link HarStreamReader} and the response of each entry is analyzed and added to the
+     * {@link ResponseIndex} as soon as it is read, on the calling thread. Only the request and the
+     * analyzed response are kept: the response body is then dropped, set to null for JSON bodies,
+     * which can be read again from the HAR with {@link HarStreamReader#readEntry(File, int)}, and
+     * to an empty string for the others. The raw HAR text is not kept, and
+     * {@link #analyze_responses()} has nothing left to do.
+     *
+     * @param har_file HAR file to read
+     * @param streaming true to ingest the HAR with the pull parser, false for the eager behaviour
+     * @throws IOException if the file cannot be read
+     */
+    public ExtractDependencies(File har_file, boolean streaming) throws IOException {
         this.file_har = har_file;
-        this.har_content= FileUtils.readFileToString(har_file, UTF_8);
         this.responseUnstructuredList = new ArrayList<>();
-        Gson gson  = new Gson();
-        this.har = gson.fromJson(har_content,Har.class);
+        this.responseIndex = new ResponseIndex(this.responseUnstructuredList);
+        if(!streaming){
+            this.har_content= FileUtils.readFileToString(har_file, UTF_8);
+            Gson gson  = new Gson();
+            this.har = gson.fromJson(har_content,Har.class);
+            return;
+        }
+        ResponseAnalyzer responseAnalyzer = new ResponseAnalyzer();
+        List<Entry> entries = new ArrayList<>();
+        Log log = HarStreamReader.read(har_file, (index, entry) -> {
+            check_cancelled();
+            this.responseIndex.add(analyze_response(responseAnalyzer, entry));
+            drop_analyzed_body(entry);
+            entries.add(entry);
+        });
+        log.setEntries(entries.toArray(new Entry[0]));
+        this.har = new Har();
+        this.har.setLog(log);
+        this.analyzed = true;
+    }
+
+    // true once the responses are in the index, set by the streaming constructor
+    boolean analyzed;
+
+    /**
+     * Drops the response body of an entry once the response has been analyzed.
+     *
+     * <p>JSON bodies are set to null: they live on in the analyzed response. The other bodies are
+     * replaced with an empty string, which is how the UI already recognises responses without a
+     * JSON body.
+     *
+     * @param entry HAR entry to trim
+     */
+    private static void drop_analyzed_body(Entry entry){
+        if(entry.getResponse() == null || entry.getResponse().getContent() == null)
+            return;
+        if("application/json".equals(entry.getResponse().getContent().getMimeType())){
+            entry.getResponse().getContent().setText(null);
+        }else{
+            entry.getResponse().getContent().setText("");
+        }
     }
 
     /**
      * Analyzes all responses in the HAR file.
      *
      * <p>For JSON responses, it extracts the unstructured representation.
-     * It also analyzes response headers for all entries.
+     * It also analyzes response headers for all entries. Every analyzed response is added to
+     * the {@link ResponseIndex} used by the dependency checks.
+     *
+     * <p>When {@link #setParallelism(int) parallelism} is greater than 1 the entries are analyzed
+     * concurrently. Each entry is analyzed independently and the results are indexed in HAR
+     * order once all of them are available, so the resulting {@code DependencyGraph} is
+     * identical to the sequential one.
+     *
+     * <p>In streaming mode the responses have already been analyzed while the HAR was read.
      */
     public void analyze_responses(){
+        if(analyzed)
+            return;
         ResponseAnalyzer responseAnalyzer = new ResponseAnalyzer();
-        for(int i=0; i<har.getLog().getEntries().length;i++){
-            if("application/json".equals(har.getLog().getEntries()[i].getResponse().getContent().getMimeType())){
-                this.responseUnstructuredList.add(
-                        responseAnalyzer.getUnstructuredResponse(
-                                har.getLog().getEntries()[i].getResponse().getContent().getText()
-                        )
-                );
-            }else{
-                this.responseUnstructuredList.add(
-                        new ResponseUnstructured()
-                );
+        Entry[] entries = har.getLog().getEntries();
+        if(parallelism == 1 || entries.length < 2){
+            for(Entry entry : entries){
+                check_cancelled();
+                this.responseIndex.add(analyze_response(responseAnalyzer, entry));
+                progressListener.progress(ProgressListener.Stage.RESPONSES, null, this.responseIndex.getResponses().size(), entries.length);
             }
-            responseAnalyzer.analyzeResponseHeader(har.getLog().getEntries()[i].getResponse().getHeaders(),this.responseUnstructuredList.get(i));
+            return;
         }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, entries.length));
+        try {
+            List<Future<ResponseUnstructured>> futures = new ArrayList<>(entries.length);
+            for(Entry entry : entries){
+                futures.add(executor.submit(() -> analyze_response(responseAnalyzer, entry)));
+            }
+            for(Future<ResponseUnstructured> future : futures){
+                this.responseIndex.add(await(future));
+                progressListener.progress(ProgressListener.Stage.RESPONSES, null, this.responseIndex.getResponses().size(), entries.length);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Analyzes the response of a single HAR entry.
+     *
+     * @param responseAnalyzer analyzer, which holds no state and can be shared between threads
+     * @param entry HAR entry
+     * @return unstructured representation of the response body and headers
+     */
+    private static ResponseUnstructured analyze_response(ResponseAnalyzer responseAnalyzer, Entry entry){
+        ResponseUnstructured responseUnstructured;
+        if("application/json".equals(entry.getResponse().getContent().getMimeType())){
+            responseUnstructured = responseAnalyzer.getUnstructuredResponse(
+                    entry.getResponse().getContent().getText()
+            );
+        }else{
+            responseUnstructured = new ResponseUnstructured();
+        }
+        responseAnalyzer.analyzeResponseHeader(entry.getResponse().getHeaders(),responseUnstructured);
+        return responseUnstructured;
+    }
+
+    /**
+     * Waits for a task of the analysis pool, rethrowing its failure unchecked. An
+     * {@link IOException} is wrapped in an {@link UncheckedIOException}, an interruption becomes
+     * a {@link CancellationException}.
+     *
+     * @param future task to wait for
+     * @return the task result
+     */
+    private static <T> T await(Future<T> future){
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Dependency analysis cancelled");
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof IOException)
+                throw new UncheckedIOException((IOException) e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+
+    /**
+     * A dependency check run for a single request.
+     */
+    private interface DependencyCheck {
+        void check(ResponseIndex responseIndex, int req_index, DependencyGraph dependencyGraph, MyNode to, int first_index_response) throws IOException;
     }
 
+    /**
+     * Dependency checks, in the order their edges are added to the graph for each request.
+     */
+    private static final List<DependencyCheck> dependency_checks = List.of(
+            UrlDependency::check_url_dependencies,
+            HeaderDependency::check_header_dependency,
+            QueryParameterDependency::check_queryParams_dependency,
+            ExtractDependencies::check_body_dependency,
+            CookieDependency::check_cookie_dependency
+    );
+
+    /**
+     * Names of the {@link #dependency_checks}, reported to the {@link ProgressListener}.
+     */
+    private static final List<String> dependency_check_names = List.of("URL", "Header", "Query parameter", "Body", "Cookie");
+
+    private void report_check(int check, int req_index, int requests) {
+        progressListener.progress(ProgressListener.Stage.DEPENDENCIES, dependency_check_names.get(check),
+                (req_index - 1) * dependency_checks.size() + check + 1, (requests - 1) * dependency_checks.size());
+    }
+
+    /**
+     * Stops the analysis if the running thread has been interrupted.
+     */
+    private static void check_cancelled(){
+        if(Thread.currentThread().isInterrupted())
+            throw new CancellationException("Dependency analysis cancelled");
+    }
+
+    private static void check_body_dependency(ResponseIndex responseIndex, int req_index, DependencyGraph dependencyGraph, MyNode to, int first_index_response) throws IOException {
+        if(to.getRequest().getPostData() != null &&(to.getRequest().getMethod().equals("POST")|| to.getRequest().getMethod().equals("PUT"))){
+            BodyDependency.check_body_dependency(responseIndex,req_index,dependencyGraph,to,first_index_response);
+        }
+    }
 
     /**
      * Builds a dependency graph of all requests in the HAR file.
@@ -118,31 +339,88 @@ public class ExtractDependencies {
      *     <li>Cookies</li>
      * </ul>
      *
+     * <p>When {@link #setParallelism(int) parallelism} is greater than 1 the nodes are registered
+     * first, then each request runs as a separate task that applies all the checks, in order,
+     * collecting their edges in its own buffer. The buffers are merged by request index, so the
+     * graph is identical to the sequential one.
+     *
      * @return DependencyGraph representing all dependencies between requests
      * @throws IOException if there is an error processing request data
      */
     public DependencyGraph build_dependencies_graph() throws IOException {
+        StemTable.stemAll(StemTable.names(this.har.getLog().getEntries(), this.responseIndex.getResponses()));
+        if(parallelism > 1)
+            return build_dependencies_graph_parallel();
         DependencyGraph dependencyGraph = new DependencyGraph();
         dependencyGraph.addRequestoToGraph(this.har.getLog().getEntries()[0].getRequest(),0);
         for(int i=1; i<this.har.getLog().getEntries().length;i++){
             MyNode to = dependencyGraph.addRequestoToGraph(this.har.getLog().getEntries()[i].getRequest(),i);
-            int first_index_response =to.indexs.indexOf(i);
-            if(first_index_response!=0){
-                first_index_response =to.indexs.get(first_index_response-1)+1;
-            }
+            int first_index_response = first_index_response(to,i);
             //if(to != null){ // if to is not equals null, it's the first time we meet this request so we've to analyze it
-            UrlDependency.check_url_dependencies(this.responseUnstructuredList,i,dependencyGraph,to,first_index_response);
-            HeaderDependency.check_header_dependency(this.responseUnstructuredList,i,dependencyGraph,to,first_index_response);
-            QueryParameterDependency.check_queryParams_dependency(this.responseUnstructuredList,i,dependencyGraph,to,first_index_response);
-            if(to.getRequest().getPostData() != null &&(to.getRequest().getMethod().equals("POST")|| to.getRequest().getMethod().equals("PUT"))){
-                BodyDependency.check_body_dependency(this.responseUnstructuredList,i,dependencyGraph,to,first_index_response);
+            for(int check=0; check<dependency_checks.size(); check++){
+                check_cancelled();
+                dependency_checks.get(check).check(this.responseIndex,i,dependencyGraph,to,first_index_response);
+                report_check(check,i,this.har.getLog().getEntries().length);
             }
-            CookieDependency.check_cookie_dependency(this.responseUnstructuredList,i,dependencyGraph,to,first_index_response);
             //}
         }
         return  dependencyGraph;
     }
 
+    private DependencyGraph build_dependencies_graph_parallel() throws IOException {
+        DependencyGraph dependencyGraph = new DependencyGraph();
+        Entry[] entries = this.har.getLog().getEntries();
+        MyNode[] to_nodes = new MyNode[entries.length];
+        int[] first_index_responses = new int[entries.length];
+        dependencyGraph.addRequestoToGraph(entries[0].getRequest(),0);
+        for(int i=1; i<entries.length;i++){
+            to_nodes[i] = dependencyGraph.addRequestoToGraph(entries[i].getRequest(),i);
+            first_index_responses[i] = first_index_response(to_nodes[i],i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            // one task per request runs all the checks, in order, like the sequential loop
+            List<Future<List<Edge>>> futures = new ArrayList<>();
+            for(int i=1; i<entries.length;i++){
+                int req_index = i;
+                // the nodes are shared read-only, the edges go to the task buffer
+                DependencyGraph buffer = dependencyGraph.edgeBuffer();
+                futures.add(executor.submit(() -> {
+                    for(DependencyCheck dependencyCheck : dependency_checks){
+                        check_cancelled();
+                        dependencyCheck.check(this.responseIndex,req_index,buffer,to_nodes[req_index],first_index_responses[req_index]);
+                    }
+                    return buffer.edges;
+                }));
+            }
+            for(int i=1; i<entries.length;i++){
+                dependencyGraph.edges.addAll(await(futures.get(i - 1)));
+                report_check(dependency_checks.size() - 1, i, entries.length);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            executor.shutdownNow();
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Returns the index of the first response a request can depend on: the response following
+     * the previous occurrence of the same request, or 0 if this is its first occurrence.
+     *
+     * @param to node of the request
+     * @param req_index index of the request in the HAR sequence
+     * @return index of the first response to consider for dependency checks
+     */
+    private static int first_index_response(MyNode to, int req_index){
+        int first_index_response =to.indexs.indexOf(req_index);
+        if(first_index_response!=0){
+            first_index_response =to.indexs.get(first_index_response-1)+1;
+        }
+        return first_index_response;
+    }
+
     public static void main(String []args) throws IOException {
         File har_file = new File("/home/sergio/IdeaProjects/powerve-e2e-test/cypress/e2e/hars/login.har");
         ExtractDependencies extractDependencies = new ExtractDependencies(har_file);
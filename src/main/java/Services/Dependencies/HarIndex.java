@@ -0,0 +1,183 @@
+package Services.Dependencies;
+
+import Entity.Cookie;
+import Entity.Entry;
+import Entity.Header;
+import Entity.WebSocketMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the entries of a HAR file by URL, with a summary of their WebSocket messages.
+ *
+ * <p>The HAR is read once with {@link HarStreamReader}, keeping for each entry only its URL. Entries
+ * with a WebSocket URL or with {@code _webSocketMessages} also keep the request headers and cookies,
+ * and the type of each message with the data of the messages sent by the client: this is what the
+ * WebSocket script generation and the customise-correlation window look up, many times for the same
+ * HAR. Response bodies are not kept.
+ *
+ * <p>{@link #of(String)} shares the indexes of the last HAR files used; an index is built again when
+ * its file changes.
+ */
+public class HarIndex {
+
+    /**
+     * Summary of a WebSocket message.
+     */
+    public static class Message {
+        private final String type;
+        private final String data;
+
+        Message(String type, String data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        /** @return type of the message, {@code request} or {@code response} */
+        public String getType() {
+            return type;
+        }
+
+        /** @return data of the message, only for {@code request} messages */
+        public String getData() {
+            return data;
+        }
+    }
+
+    /**
+     * Entry of the HAR with a WebSocket URL or WebSocket messages.
+     */
+    public static class WebSocketEntry {
+        private final Header[] headers;
+        private final Cookie[] cookies;
+        private final List<Message> messages;
+
+        WebSocketEntry(Header[] headers, Cookie[] cookies, List<Message> messages) {
+            this.headers = headers;
+            this.cookies = cookies;
+            this.messages = messages;
+        }
+
+        /** @return headers of the request */
+        public Header[] getHeaders() {
+            return headers;
+        }
+
+        /** @return cookies of the request */
+        public Cookie[] getCookies() {
+            return cookies;
+        }
+
+        /** @return the messages, in the order of {@code _webSocketMessages} */
+        public List<Message> getMessages() {
+            return messages;
+        }
+    }
+
+    private static final int CACHED_FILES = 4;
+    private static final Map<String, HarIndex> indexes = new LinkedHashMap<String, HarIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HarIndex> eldest) {
+            return size() > CACHED_FILES;
+        }
+    };
+
+    private final long last_modified;
+    private final long length;
+    private final List<String> urls = new ArrayList<>();
+    private final Map<String, List<Integer>> entries_by_url = new HashMap<>();
+    private final Map<Integer, WebSocketEntry> web_socket_entries = new HashMap<>();
+
+    private HarIndex(File har_file) throws IOException {
+        this.last_modified = har_file.lastModified();
+        this.length = har_file.length();
+        HarStreamReader.read(har_file, this::add);
+    }
+
+    /**
+     * Returns the index of a HAR file, reading the file only if it has not been indexed since it
+     * was last modified.
+     *
+     * @param har_path path of the HAR file
+     * @return the index
+     * @throws IOException if the file cannot be read or is not a valid HAR
+     */
+    public static HarIndex of(String har_path) throws IOException {
+        File har_file = new File(har_path);
+        String key = har_file.getCanonicalPath();
+        synchronized (indexes) {
+            HarIndex index = indexes.get(key);
+            if (index != null && index.last_modified == har_file.lastModified() && index.length == har_file.length()) {
+                return index;
+            }
+        }
+        HarIndex index = new HarIndex(har_file);
+        synchronized (indexes) {
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Forgets the indexes built so far.
+     */
+    public static void clear() {
+        synchronized (indexes) {
+            indexes.clear();
+        }
+    }
+
+    private void add(int index, Entry entry) {
+        String url = entry.getRequest().getUrl();
+        urls.add(url);
+        entries_by_url.computeIfAbsent(url, k -> new ArrayList<>()).add(index);
+        WebSocketMessage[] web_socket_messages = entry.getWebSocketMessages();
+        if (web_socket_messages == null && !url.startsWith("ws")) {
+            return;
+        }
+        List<Message> messages = new ArrayList<>();
+        if (web_socket_messages != null) {
+            for (WebSocketMessage message : web_socket_messages) {
+                messages.add(new Message(message.getType(), "request".equals(message.getType()) ? message.getData() : null));
+            }
+        }
+        web_socket_entries.put(index, new WebSocketEntry(entry.getRequest().getHeaders(), entry.getRequest().getCookies(),
+                Collections.unmodifiableList(messages)));
+    }
+
+    /** @return number of entries of the HAR */
+    public int size() {
+        return urls.size();
+    }
+
+    /**
+     * @param index position of the entry in {@code log.entries}
+     * @return URL of the request of the entry
+     */
+    public String getUrl(int index) {
+        return urls.get(index);
+    }
+
+    /**
+     * @param url URL of a request
+     * @return positions of the entries requesting the URL, in file order
+     */
+    public List<Integer> getEntries(String url) {
+        return Collections.unmodifiableList(entries_by_url.getOrDefault(url, Collections.emptyList()));
+    }
+
+    /**
+     * @param index position of the entry in {@code log.entries}
+     * @return the WebSocket summary of the entry, or null if it has no WebSocket URL or messages
+     */
+    public WebSocketEntry getWebSocketEntry(int index) {
+        return web_socket_entries.get(index);
+    }
+}
@@ -0,0 +1,139 @@
+package Services.Dependencies;
+
+import Entity.Creator;
+import Entity.Entry;
+import Entity.Log;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Pull-parser based reader for HAR (HTTP Archive) files.
+ *
+ * <p>Instead of loading the whole HAR into a {@code String} and binding the complete
+ * {@code Har/Log/Entry[]} object graph, this reader walks {@code log.entries} with a Gson
+ * {@link JsonReader} and binds one {@link Entry} at a time. Each entry is handed to an
+ * {@link EntryConsumer}, which decides what to keep, so peak heap depends on what the
+ * consumer retains and not on the size of the HAR file.
+ *
+ * <p>The returned {@link Log} only carries the HAR metadata (version and creator);
+ * {@code pages} is skipped because it is not used by the dependency analysis.
+ */
+public class HarStreamReader {
+
+    /**
+     * Callback receiving every entry of the HAR, in file order.
+     */
+    public interface EntryConsumer {
+        /**
+         * @param index position of the entry in {@code log.entries}
+         * @param entry the bound entry
+         * @throws IOException if the consumer fails to process the entry
+         */
+        void accept(int index, Entry entry) throws IOException;
+    }
+
+    private static final Gson gson = new Gson();
+
+    /**
+     * Streams the entries of a HAR file to the given consumer.
+     *
+     * @param har_file HAR file to read
+     * @param consumer consumer invoked once per entry
+     * @return the HAR log metadata, without entries
+     * @throws IOException if the file cannot be read or is not a valid HAR
+     */
+    public static Log read(File har_file, EntryConsumer consumer) throws IOException {
+        try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(har_file), UTF_8)))) {
+            Log log = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("log".equals(reader.nextName())) {
+                    log = readLog(reader, consumer);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (log == null) {
+                throw new IOException("Invalid HAR file, missing 'log' object: " + har_file.getName());
+            }
+            return log;
+        }
+    }
+
+    /**
+     * Reads a single entry of a HAR file, stopping at that entry.
+     *
+     * <p>Used to get back the parts of an entry dropped after the analysis, such as a response
+     * body, when they are shown.
+     *
+     * @param har_file HAR file to read
+     * @param index position of the entry in {@code log.entries}
+     * @return the entry
+     * @throws IOException if the file cannot be read, is not a valid HAR or has no such entry
+     */
+    public static Entry readEntry(File har_file, int index) throws IOException {
+        Entry[] found = new Entry[1];
+        try {
+            read(har_file, (i, entry) -> {
+                if (i == index) {
+                    found[0] = entry;
+                    throw new Found();
+                }
+            });
+        } catch (Found e) {
+            return found[0];
+        }
+        throw new IOException("No entry " + index + " in " + har_file.getName());
+    }
+
+    // stops the reading once the entry looked for is found
+    private static class Found extends IOException {
+        Found() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static Log readLog(JsonReader reader, EntryConsumer consumer) throws IOException {
+        Log log = new Log();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "version":
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else {
+                        log.setVersion(reader.nextString());
+                    }
+                    break;
+                case "creator":
+                    log.setCreator(gson.fromJson(reader, Creator.class));
+                    break;
+                case "entries":
+                    int index = 0;
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Entry entry = gson.fromJson(reader, Entry.class);
+                        consumer.accept(index, entry);
+                        index++;
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return log;
+    }
+}
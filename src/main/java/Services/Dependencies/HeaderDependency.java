@@ -1,12 +1,9 @@
 package Services.Dependencies;
 
 import Entity.*;
-import Services.ResponseAnalyzer.AtomicObject;
-import Services.ResponseAnalyzer.ResponseUnstructured;
-import Services.ResponseAnalyzer.StructuredObject;
+import Services.ResponseAnalyzer.ResponseIndex;
 
 import java.util.HashSet;
-import java.util.List;
 
 /**
  * Handles analysis of HTTP headers to detect dependencies between requests.
@@ -20,6 +17,8 @@ import java.util.List;
  * {@link DependencyGraph}.
  */
 public class HeaderDependency {
+
+    private static final AtomicDependencyValidator atomicDependencyValidator = new AtomicDependencyValidator();
     /**
      * Headers to ignore during dependency analysis.
      */
@@ -36,53 +35,38 @@ public class HeaderDependency {
     /**
      * Checks for header-based dependencies for a given request.
      *
-     * <p>For each non-blacklisted header in the target request, this method examines
-     * all previous responses (from {@code first_index_response} to {@code req_index - 1})
+     * <p>For each non-blacklisted header in the target request, this method looks up the header
+     * value in the previous responses (from {@code first_index_response} to {@code req_index - 1})
      * to detect dependencies, updating the {@link DependencyGraph} if a dependency is found.
+     * For the {@code Authorization} header the looked up value is the token after the
+     * {@code Bearer} scheme, or the whole value for other schemes.
      *
-     * @param responseUnstructuredList list of previously analyzed unstructured responses
+     * @param responseIndex index of the previously analyzed responses
      * @param req_index index of the current request in the HAR sequence
      * @param dependencyGraph the graph to update with detected dependencies
      * @param to the target node representing the current request
      * @param first_index_response index of the first response to consider for dependency checks
      */
-    public static void check_header_dependency(List<ResponseUnstructured> responseUnstructuredList, int req_index, DependencyGraph dependencyGraph, MyNode to,int first_index_response) {
+    public static void check_header_dependency(ResponseIndex responseIndex, int req_index, DependencyGraph dependencyGraph, MyNode to,int first_index_response) {
+        if(first_index_response >= req_index)
+            return;
         for( Header header: to.getRequest().getHeaders()){
             if(!blackListHeaders.contains(header.getName())) {
-                for (int response_index = first_index_response; response_index < req_index; response_index++) {
-                    MyNode from = dependencyGraph.getNodeByIndex(response_index);
-                    check_header(header, responseUnstructuredList.get(response_index),to,from,dependencyGraph,req_index,response_index);
+                String value = header.getName().equals("Authorization") ? AtomicDependencyValidator.authorization_token(header.getValue()) : header.getValue();
+                for (ResponseIndex.Occurrence occurrence : responseIndex.lookup(value, first_index_response, req_index)) {
+                    MyNode from = dependencyGraph.getNodeByIndex(occurrence.response_index);
+                    check_header(header, occurrence, to, from, dependencyGraph, req_index);
                 }
             }
         }
     }
 
-    private static void check_header(Header header, Object response, MyNode to, MyNode from, DependencyGraph dependencyGraph,int req_index,int from_index) {
-        if(response.getClass() == ResponseUnstructured.class){
-            ResponseUnstructured responseUnstructured = (ResponseUnstructured)response;
-            for(Object o : responseUnstructured.getObjects()){
-                check_header_atomic_evaluation(o,header,null,to,from,dependencyGraph,req_index,from_index);
-            }
-        }else if(response.getClass() == StructuredObject.class){
-            StructuredObject structuredObject = (StructuredObject) response;
-            for(Object o : structuredObject.getObjects()){
-                check_header_atomic_evaluation(o,header,structuredObject,to,from,dependencyGraph,req_index,from_index);
-            }
-        }
-    }
-
-    private static void check_header_atomic_evaluation(Object o, Header header, StructuredObject father, MyNode to, MyNode from, DependencyGraph dependencyGraph, int req_index,int from_index) {
-        if(o.getClass() == AtomicObject.class){
-            AtomicObject atomicObject = (AtomicObject) o;
-            AtomicDependencyValidator atomicDependencyValidator = new AtomicDependencyValidator();
-            if(atomicDependencyValidator.evaluate_atomic_dependencies(atomicObject,header,father,from.getRequest())){
-                EdgeHeader edgeHeader = new EdgeHeader(from, to,header.getName(), atomicObject);
-                dependencyGraph.edges.add(edgeHeader);
-                edgeHeader.setTo_index(req_index);
-                edgeHeader.setFrom_index(from_index);
-            }
-        } else if (o.getClass() == StructuredObject.class) {
-            check_header(header,o,to,from,dependencyGraph,req_index,from_index);
+    private static void check_header(Header header, ResponseIndex.Occurrence occurrence, MyNode to, MyNode from, DependencyGraph dependencyGraph, int req_index) {
+        if(atomicDependencyValidator.evaluate_atomic_dependencies(occurrence.atomicObject,header,occurrence.father,from.getRequest())){
+            EdgeHeader edgeHeader = new EdgeHeader(from, to,header.getName(), occurrence.atomicObject);
+            dependencyGraph.edges.add(edgeHeader);
+            edgeHeader.setTo_index(req_index);
+            edgeHeader.setFrom_index(occurrence.response_index);
         }
     }
 }
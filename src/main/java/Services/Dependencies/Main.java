@@ -3,6 +3,7 @@ package Services.Dependencies;
 import Entity.DependencyGraph;
 import Entity.Har;
 import Properties.Paths;
+import Services.ResponseAnalyzer.JsonSchemaGenerator;
 import Services.ResponseAnalyzer.StructuredObject;
 
 import java.io.File;
@@ -13,12 +14,12 @@ public class Main {
         String filename ="pianification";
         String har_filename ="/home/sergio/IdeaProjects/powerve-e2e-test/cypress/e2e/hars/pianification.har";
         File har_file = new File(har_filename);
-        File file_json_odg = new File(Paths.odp_path+"/"+filename+".json");
+        File file_json_odg = DependencyGraph.getGraphFile(Paths.odp_path,filename);
         DependencyGraph dependencyGraph =null;
         Har har = null;
         ExtractDependencies extractDependencies = null;
         try {
-            extractDependencies = new ExtractDependencies(har_file);
+            extractDependencies = new ExtractDependencies(har_file, true);
             har = extractDependencies.getHar();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -38,6 +39,10 @@ public class Main {
                     System.out.println(response);
                 }*/
                 dependencyGraph = extractDependencies.build_dependencies_graph();
+                System.out.println("Stem cache: "+AtomicDependencyValidator.getStemCache());
+                System.out.println("Lowercase cache: "+AtomicDependencyValidator.getLowerCaseCache());
+                System.out.println("Similarity cache: "+AtomicDependencyValidator.getSimilarityCache());
+                System.out.println("Schema cache: hits: "+JsonSchemaGenerator.getCacheHits()+", misses: "+JsonSchemaGenerator.getCacheMisses());
                 dependencyGraph.saveDependencyGraph(dependencyGraph, har_file);
             } catch (IOException e) {
                 throw new RuntimeException(e);
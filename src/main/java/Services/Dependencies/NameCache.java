@@ -0,0 +1,84 @@
+package Services.Dependencies;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe memo used to avoid recomputing values derived from names
+ * (stems, similarities, ...) during the dependency analysis.
+ *
+ * <p>The set of distinct names of a HAR is small compared to the number of comparisons made
+ * on them, so the cache is simply emptied when it reaches its maximum size instead of keeping
+ * an eviction order. Two threads missing the same key at the same time may both compute it;
+ * the computed function must therefore be pure.
+ *
+ * @param <K> key type
+ * @param <V> value type, never null
+ */
+public class NameCache<K, V> {
+
+    private final Map<K, V> values = new ConcurrentHashMap<>();
+    private final int max_size;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param max_size number of entries after which the cache is emptied
+     */
+    public NameCache(int max_size) {
+        this.max_size = max_size;
+    }
+
+    /**
+     * Returns the cached value of a key, computing and caching it on a miss.
+     *
+     * @param key     the key
+     * @param compute function computing the value of a missing key
+     * @return the value
+     */
+    public V get(K key, Function<K, V> compute) {
+        V value = values.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = compute.apply(key);
+        if (values.size() >= max_size) {
+            values.clear();
+        }
+        values.put(key, value);
+        return value;
+    }
+
+    /** @return number of lookups answered from the cache */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** @return number of lookups that computed the value */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** @return number of cached entries */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Empties the cache and resets the counters.
+     */
+    public void clear() {
+        values.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + getHits() + ", misses: " + getMisses() + ", size: " + size();
+    }
+}
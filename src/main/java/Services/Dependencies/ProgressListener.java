@@ -0,0 +1,46 @@
+package Services.Dependencies;
+
+/**
+ * Receives progress events from the dependency analysis and the script generation.
+ *
+ * <p>Events are sent from the thread running the analysis, never from the Swing event dispatch
+ * thread: listeners updating the UI must hand the event over to it.
+ */
+public interface ProgressListener {
+
+    /**
+     * Stages of the analysis pipeline, in execution order.
+     */
+    enum Stage {
+        PARSING("Parsing HAR"),
+        RESPONSES("Flattening responses"),
+        DEPENDENCIES("Detecting dependencies"),
+        SCRIPT("Writing script");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        /** @return human readable description of the stage */
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Listener ignoring every event.
+     */
+    ProgressListener NONE = (stage, detail, done, total) -> { };
+
+    /**
+     * Reports the progress of a stage.
+     *
+     * @param stage  current stage
+     * @param detail what is being done inside the stage, may be null
+     * @param done   units of work completed in the stage
+     * @param total  units of work of the stage, 0 if unknown
+     */
+    void progress(Stage stage, String detail, int done, int total);
+}
@@ -0,0 +1,228 @@
+package Services.Dependencies;
+
+import Entity.Cookie;
+import Entity.Entry;
+import Entity.Header;
+import Entity.Param;
+import Entity.QueryParam;
+import Entity.Request;
+import Services.ResponseAnalyzer.AtomicObject;
+import Services.ResponseAnalyzer.ResponseUnstructured;
+import Services.ResponseAnalyzer.StructuredObject;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import opennlp.tools.stemmer.PorterStemmer;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared table of the Porter stems of the names compared by the dependency checks.
+ *
+ * <p>The OpenNLP {@link PorterStemmer} keeps the word being stemmed in its fields, so each
+ * thread uses its own instance, see {@link #stem(String)}. Before the checks run,
+ * {@link ExtractDependencies} stems once all the distinct names of the HAR with
+ * {@link #stemAll(Collection)}: the names of request headers, query parameters, cookies and
+ * form parameters, the keys of JSON request bodies, the URL path segments, and the names of the
+ * JSON objects and values of the responses.
+ * {@link AtomicDependencyValidator#porter_stamming(String)} then finds them in the table, and
+ * only names built during the checks go through its bounded cache.
+ *
+ * <p>Stems do not depend on the HAR, so the names of a HAR analyzed before stay valid. The
+ * table is bounded like a {@link NameCache}: it is emptied when it reaches {@link #MAX_SIZE}
+ * names, and names missing from it are simply stemmed again by the validator. URL path segments
+ * that look like ids (numbers, UUIDs, hashes, tokens) are not added.
+ */
+public class StemTable {
+
+    /** Number of names after which the table is emptied. */
+    public static final int MAX_SIZE = 1 << 16;
+
+    private static final int ID_LENGTH = 16;
+
+    private static final ThreadLocal<PorterStemmer> stemmers = ThreadLocal.withInitial(PorterStemmer::new);
+    private static final Map<String, String> stems = new ConcurrentHashMap<>();
+
+    private StemTable() {
+    }
+
+    /**
+     * Applies Porter stemming to a name with the stemmer of the calling thread.
+     *
+     * @param name name to stem
+     * @return stemmed name
+     */
+    public static String stem(String name) {
+        return stemmers.get().stem(name);
+    }
+
+    /**
+     * Returns the stem of a name of the table.
+     *
+     * @param name the name
+     * @return the stem, or null if the name is not in the table
+     */
+    public static String get(String name) {
+        return stems.get(name);
+    }
+
+    /**
+     * Stems the names that are not in the table yet and adds them, with their stems: the
+     * validator stems the stem of a parent object name again when completing short ids.
+     * The table is emptied first if it would grow past {@link #MAX_SIZE}.
+     *
+     * @param names names to add
+     * @return number of names added
+     */
+    public static int stemAll(Collection<String> names) {
+        if (stems.size() + 2L * names.size() > MAX_SIZE) {
+            stems.clear();
+        }
+        int added = 0;
+        for (String name : names) {
+            while (name != null && !stems.containsKey(name) && stems.size() < MAX_SIZE) {
+                String stem = stem(name);
+                stems.put(name, stem);
+                added++;
+                name = stem;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Collects the names of a HAR compared by the dependency checks, lowercased as the
+     * validator does; URL path segments are also kept as they are, except the ones that look
+     * like ids, see {@link #isIdLike(String)}.
+     *
+     * @param entries   entries of the HAR
+     * @param responses analyzed responses of the entries
+     * @return the distinct names
+     */
+    public static Set<String> names(Entry[] entries, List<ResponseUnstructured> responses) {
+        Set<String> names = new HashSet<>();
+        for (Entry entry : entries) {
+            Request request = entry.getRequest();
+            if (request.getHeaders() != null) {
+                for (Header header : request.getHeaders()) {
+                    names.add(header.getName().toLowerCase());
+                }
+            }
+            if (request.getQueryParams() != null) {
+                for (QueryParam queryParam : request.getQueryParams()) {
+                    names.add(queryParam.getName().toLowerCase());
+                }
+            }
+            if (request.getCookies() != null) {
+                for (Cookie cookie : request.getCookies()) {
+                    names.add(cookie.getName().toLowerCase());
+                }
+            }
+            if (request.getPostData() != null && request.getPostData().getParams() != null) {
+                for (Param param : request.getPostData().getParams()) {
+                    names.add(param.getName().toLowerCase());
+                }
+            }
+            if (request.getPostData() != null && "application/json".equals(request.getPostData().getMimeType())) {
+                addBodyKeys(request.getPostData().getText(), names);
+            }
+            String path = URI.create(request.getUrl()).getPath();
+            if (path != null) {
+                for (String segment : path.split("/")) {
+                    if (isIdLike(segment)) {
+                        continue;
+                    }
+                    names.add(segment);
+                    names.add(segment.toLowerCase());
+                }
+            }
+        }
+        for (ResponseUnstructured response : responses) {
+            addObjectNames(response.getObjects(), names);
+        }
+        return names;
+    }
+
+    /**
+     * Tells whether a URL path segment is a value rather than a name: empty, or with digits and
+     * either only hexadecimal digits and dashes (numbers, UUIDs, hashes) or longer than
+     * {@link #ID_LENGTH} characters (tokens).
+     *
+     * @param segment the path segment
+     * @return true if the segment is not worth keeping in the table
+     */
+    static boolean isIdLike(String segment) {
+        if (segment.isEmpty())
+            return true;
+        boolean digits = false;
+        boolean hex = true;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            digits |= Character.isDigit(c);
+            hex &= Character.digit(c, 16) >= 0 || c == '-';
+        }
+        return digits && (hex || segment.length() > ID_LENGTH);
+    }
+
+    private static void addObjectNames(List<Object> objects, Set<String> names) {
+        for (Object o : objects) {
+            if (o.getClass() == StructuredObject.class) {
+                StructuredObject structuredObject = (StructuredObject) o;
+                if (structuredObject.getName() != null) {
+                    names.add(structuredObject.getName().toLowerCase());
+                }
+                addObjectNames(structuredObject.getObjects(), names);
+            } else if (o.getClass() == AtomicObject.class) {
+                AtomicObject atomicObject = (AtomicObject) o;
+                if (atomicObject.getName() != null) {
+                    names.add(atomicObject.getName().toLowerCase());
+                }
+            }
+        }
+    }
+
+    // the keys of a JSON body are the names BodyDependency compares; bodies that do not parse are skipped
+    private static void addBodyKeys(String body, Set<String> names) {
+        if (body == null || !(body.startsWith("{") || body.startsWith("["))) {
+            return;
+        }
+        try {
+            addKeys(JsonParser.parseString(body), names);
+        } catch (JsonParseException e) {
+            // not compared by the body check either
+        }
+    }
+
+    private static void addKeys(JsonElement element, Set<String> names) {
+        if (element.isJsonObject()) {
+            JsonObject jsonObject = element.getAsJsonObject();
+            for (String key : jsonObject.keySet()) {
+                names.add(key.toLowerCase());
+                addKeys(jsonObject.get(key), names);
+            }
+        } else if (element.isJsonArray()) {
+            for (JsonElement item : element.getAsJsonArray()) {
+                addKeys(item, names);
+            }
+        }
+    }
+
+    /** @return number of names in the table */
+    public static int size() {
+        return stems.size();
+    }
+
+    /**
+     * Empties the table.
+     */
+    public static void clear() {
+        stems.clear();
+    }
+}
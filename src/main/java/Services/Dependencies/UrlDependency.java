@@ -1,8 +1,7 @@
 package Services.Dependencies;
 
 import Entity.*;
-import Services.ResponseAnalyzer.AtomicObject;
-import Services.ResponseAnalyzer.ResponseUnstructured;
+import Services.ResponseAnalyzer.ResponseIndex;
 import Services.ResponseAnalyzer.StructuredObject;
 
 import java.net.URI;
@@ -15,67 +14,63 @@ import java.util.List;
  * are added to the {@link DependencyGraph}.
  */
 public class UrlDependency {
+
+    private static final AtomicDependencyValidator atomicDependencyValidator = new AtomicDependencyValidator();
     /**
      * Checks for URL-based dependencies for a given request.
      *
-     * <p>For each segment in the target request's URL path, this method examines all
-     * previous responses (from {@code first_index_response} to {@code req_index - 1})
+     * <p>For each segment in the target request's URL path, this method looks up the segment
+     * in the previous responses (from {@code first_index_response} to {@code req_index - 1})
      * to detect dependencies. Detected dependencies are added to the {@link DependencyGraph}.
      *
-     * @param response list of previously analyzed unstructured responses
+     * <p>Inside a single response, once a segment has been matched the nested objects that are
+     * not on the path of the first match are not considered anymore, as the tree walk used to do.
+     *
+     * @param responseIndex index of the previously analyzed responses
      * @param req_index index of the current request in the HAR sequence
      * @param dependencyGraph the graph to update with detected dependencies
      * @param to the target node representing the current request
      * @param first_index_response index of the first response to consider for dependency checks
      */
-    public static void check_url_dependencies(List<ResponseUnstructured> response, int req_index, DependencyGraph dependencyGraph, MyNode to,int first_index_response){
+    public static void check_url_dependencies(ResponseIndex responseIndex, int req_index, DependencyGraph dependencyGraph, MyNode to,int first_index_response){
         //System.out.println("URL:"+to.getRequest().getUrl());
         URI uri = URI.create(to.getRequest().getUrl());
         String path = uri.getPath();
         String [] subPathOfRequestURL = path.split("/");
         for(int i=1; i< subPathOfRequestURL.length ;i++){
             //System.out.println("URL DEP: "+subPathOfRequestURL[i]);
-            for(int response_index = first_index_response;response_index<req_index;response_index++){
-                MyNode from = dependencyGraph.getNodeByIndex(response_index);
-                boolean is_dep = check_subpath(subPathOfRequestURL[i],response.get(response_index), dependencyGraph,to,from,subPathOfRequestURL[i-1],req_index,response_index);
+            int matched_response = -1;
+            List<StructuredObject> matched_path = null;
+            for(ResponseIndex.Occurrence occurrence : responseIndex.lookup(subPathOfRequestURL[i],first_index_response,req_index)){
+                if(occurrence.response_index != matched_response){
+                    matched_path = null;
+                }
+                if(matched_path != null && !on_matched_path(occurrence,matched_path)){
+                    continue;
+                }
+                MyNode from = dependencyGraph.getNodeByIndex(occurrence.response_index);
+                if(check_subpath(subPathOfRequestURL[i],occurrence,dependencyGraph,to,from,subPathOfRequestURL[i-1],req_index) && matched_path == null){
+                    matched_response = occurrence.response_index;
+                    matched_path = occurrence.path;
+                }
             }
         }
     }
 
-
-    private static boolean check_subpath(String path, Object response, DependencyGraph dependencyGraph, MyNode to , MyNode from, String possible_name,int req_index,int from_index){
-        boolean res = false;
-        if(response.getClass() == ResponseUnstructured.class){
-            ResponseUnstructured responseUnstructured = (ResponseUnstructured)response;
-            for(Object o : responseUnstructured.getObjects()){
-                res = check_subpath_atomic_evaluation(o,path,from,dependencyGraph,res,to,null,possible_name,req_index,from_index);
-            }
-        }else if(response.getClass() == StructuredObject.class){
-            StructuredObject structuredObject = (StructuredObject) response;
-            for(Object o : structuredObject.getObjects()){
-                res = check_subpath_atomic_evaluation(o,path,from,dependencyGraph,res,to,structuredObject,possible_name,req_index,from_index);
-            }
-        }
-        return  res;
+    private static boolean on_matched_path(ResponseIndex.Occurrence occurrence, List<StructuredObject> matched_path){
+        int depth = occurrence.path.size();
+        return depth == 0 || (depth <= matched_path.size() && matched_path.get(depth-1) == occurrence.father);
     }
 
-    private static boolean check_subpath_atomic_evaluation(Object o, String path, MyNode from, DependencyGraph dependencyGraph, Boolean res, MyNode to, StructuredObject father, String possibile_name,int req_index,int from_index){
-        if(o.getClass() == AtomicObject.class){
-            AtomicObject atomicObject = (AtomicObject) o;
-            if(path.equals(atomicObject.getValue())){
-                AtomicDependencyValidator atomicDependencyValidator = new AtomicDependencyValidator();
-                //System.out.println("found! : "+atomicObject);
-                if(atomicDependencyValidator.evaluate_url_atomic_dep(atomicObject,from.getRequest(),path,father,possibile_name)) {
-                    EdgeUrl edgeUrl = new EdgeUrl(from,to, path, atomicObject);
-                    dependencyGraph.edges.add(edgeUrl);
-                    edgeUrl.setTo_index(req_index);
-                    edgeUrl.setFrom_index(from_index);
-                    res = true;
-                }
-            }
-        } else if (o.getClass() == StructuredObject.class) {
-            res = res || check_subpath(path,o,dependencyGraph,to,from,possibile_name,req_index,from_index);
+    private static boolean check_subpath(String path, ResponseIndex.Occurrence occurrence, DependencyGraph dependencyGraph, MyNode to, MyNode from, String possibile_name, int req_index){
+        //System.out.println("found! : "+atomicObject);
+        if(atomicDependencyValidator.evaluate_url_atomic_dep(occurrence.atomicObject,from.getRequest(),path,occurrence.father,possibile_name)) {
+            EdgeUrl edgeUrl = new EdgeUrl(from,to, path, occurrence.atomicObject);
+            dependencyGraph.edges.add(edgeUrl);
+            edgeUrl.setTo_index(req_index);
+            edgeUrl.setFrom_index(occurrence.response_index);
+            return true;
         }
-        return  res;
+        return false;
     }
 }
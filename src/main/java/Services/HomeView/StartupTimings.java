@@ -0,0 +1,66 @@
+package Services.HomeView;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durations of the phases of the application startup, from the start of the JVM to the
+ * {@code Home} window being complete.
+ *
+ * <p>{@link #start()} is called first thing in {@code main} and records the time the JVM took
+ * to get there as the {@code jvm} phase; each {@link #mark(String)} then ends a phase.
+ */
+public class StartupTimings {
+
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+    private static long last;
+
+    private StartupTimings() {
+    }
+
+    /**
+     * Starts timing the phases, ending the {@code jvm} phase.
+     */
+    public static synchronized void start() {
+        last = System.nanoTime();
+        phases.clear();
+        phases.put("jvm", ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    /**
+     * Ends the current phase, started by the previous mark or by {@link #start()}.
+     *
+     * @param phase name of the phase ending now
+     */
+    public static synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        phases.put(phase, TimeUnit.NANOSECONDS.toMillis(now - last));
+        last = now;
+    }
+
+    /** @return duration in milliseconds of each phase ended so far, in startup order */
+    public static synchronized Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+    /** @return total duration in milliseconds of the phases ended so far */
+    public static synchronized long getTotal() {
+        long total = 0;
+        for (long duration : phases.values()) {
+            total += duration;
+        }
+        return total;
+    }
+
+    /** @return the phases as a single line, e.g. {@code Startup: jvm 310 ms, theme 95 ms, total 405 ms} */
+    public static synchronized String format() {
+        StringBuilder sb = new StringBuilder("Startup:");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            sb.append(' ').append(phase.getKey()).append(' ').append(phase.getValue()).append(" ms,");
+        }
+        return sb.append(" total ").append(getTotal()).append(" ms").toString();
+    }
+}
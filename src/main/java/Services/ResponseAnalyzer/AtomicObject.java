@@ -3,6 +3,7 @@ package Services.ResponseAnalyzer;
 import com.google.gson.annotations.SerializedName;
 
 import java.io.Serializable;
+import java.util.Objects;
 /**
  * Represents a single atomic value extracted from an HTTP response.
  *
@@ -106,4 +107,10 @@ public class AtomicObject implements Serializable {
 
 
     }
+
+    @Override
+    public int hashCode(){
+        // the xpath is left out since equals ignores it when either side has none
+        return Objects.hash(name, value);
+    }
 }
@@ -1,33 +1,361 @@
 package Services.ResponseAnalyzer;
 
-import com.squareup.okhttp.*;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 /**
  * Provides utilities to generate a JSON Schema from a JSON string.
  *
- * <p>This class uses an external service (running on localhost:4000) to convert a JSON payload
- * into a corresponding JSON Schema representation.
+ * <p>The schema is inferred in process with the rules of the Node.js schema generator
+ * ({@code schema_generator/services/schema-services.js}), which used to run in a Docker container:
+ * <ul>
+ *     <li>primitive values give their type; {@code null}, {@code false}, {@code 0} and the empty
+ *     string give {@code string}, and a string naming a supported type gives that type;</li>
+ *     <li>arrays give an {@code array} whose items are the schema of the first element;</li>
+ *     <li>objects give an {@code object} with the schema of each property; a key starting with
+ *     {@code *} is added without the star to the {@code required} keys;</li>
+ *     <li>objects whose {@code type} is a supported type are already a schema and are copied.</li>
+ * </ul>
+ *
+ * <p>The result is the string returned by the service: the schema printed with an indentation of
+ * two spaces, as a JSON string. Keys are in JavaScript order, so that schemas generated before are
+ * still equal to the new ones.
+ *
+ * <p>The same objects recur in many responses of a HAR, so the schemas are kept in a bounded LRU
+ * cache keyed by the SHA-256 hash of the JSON string, see {@link #getCacheHits()} and
+ * {@link #getCacheMisses()}.
  */
 public class JsonSchemaGenerator {
+
+    private static final List<String> SUPPORT_TYPE = Arrays.asList("string", "number", "array", "object", "boolean", "integer");
+
+    private static final int CACHE_SIZE = 1 << 13;
+    private static final Map<ByteBuffer, String> cache = new LinkedHashMap<ByteBuffer, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private JsonSchemaGenerator() {
+    }
+
     /**
-     * Generates a JSON Schema for the given JSON string by sending it to an external service.
+     * Generates a JSON Schema for the given JSON string.
      *
      * @param json the JSON string to generate a schema for
      * @return the JSON Schema as a string
-     * @throws IOException if there is a network or I/O error while contacting the schema service
+     * @throws IOException if the JSON string is malformed
      */
     public static String generateJSONSchema(String json) throws IOException {
-        OkHttpClient client = new OkHttpClient();
-        MediaType mediaType = MediaType.parse("application/json");
-        RequestBody body = RequestBody.create(mediaType, json);
-        Request request = new Request.Builder()
-                .url("http://localhost:4000/schema")
-                .method("POST", body)
-                .addHeader("Content-Type", "application/json")
-                .build();
-        Response response = client.newCall(request).execute();
-        return response.body().string();
+        ByteBuffer key = hash(json);
+        String schema;
+        synchronized (cache) {
+            schema = cache.get(key);
+        }
+        if (schema != null) {
+            hits.increment();
+            return schema;
+        }
+        misses.increment();
+        schema = generate(json);
+        synchronized (cache) {
+            cache.put(key, schema);
+        }
+        return schema;
+    }
+
+    /**
+     * Generates the JSON Schemas of several JSON strings. Each distinct string is generated once.
+     *
+     * @param jsons the JSON strings to generate a schema for
+     * @return the JSON Schemas, in the same order
+     * @throws IOException if one of the JSON strings is malformed
+     */
+    public static List<String> generateJSONSchemas(List<String> jsons) throws IOException {
+        Map<String, String> generated = new HashMap<>();
+        List<String> schemas = new ArrayList<>(jsons.size());
+        for (String json : jsons) {
+            String schema = generated.get(json);
+            if (schema == null) {
+                schema = generateJSONSchema(json);
+                generated.put(json, schema);
+            }
+            schemas.add(schema);
+        }
+        return schemas;
+    }
+
+    /** @return number of schemas answered from the cache */
+    public static long getCacheHits() {
+        return hits.sum();
+    }
+
+    /** @return number of schemas generated */
+    public static long getCacheMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Empties the cache of generated schemas and resets the counters.
+     */
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    private static ByteBuffer hash(String json) {
+        return ByteBuffer.wrap(sha256.get().digest(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String generate(String json) throws IOException {
+        JsonElement element;
+        try {
+            element = JsonParser.parseString(json);
+        } catch (JsonParseException e) {
+            throw new IOException("Json format is error.", e);
+        }
+        JsonObject schema = new JsonObject();
+        parse(element, schema);
+        StringBuilder pretty = new StringBuilder();
+        stringify(schema, "", pretty);
+        StringBuilder result = new StringBuilder();
+        quote(pretty.toString(), result);
+        return result.toString();
     }
 
+    private static void parse(JsonElement json, JsonObject schema) {
+        if (json != null && json.isJsonArray()) {
+            handleArray(json.getAsJsonArray(), schema);
+        } else if (json != null && json.isJsonObject()) {
+            handleObject(json.getAsJsonObject(), schema);
+        } else {
+            schema.addProperty("type", getType(json));
+        }
+    }
+
+    private static String getType(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return "string";
+        }
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean() ? "boolean" : "string";
+        }
+        if (primitive.isNumber()) {
+            return primitive.getAsDouble() == 0 ? "string" : "number";
+        }
+        String string = primitive.getAsString();
+        return SUPPORT_TYPE.contains(string) ? string : "string";
+    }
+
+    private static boolean isSchema(JsonObject object) {
+        JsonElement type = object.get("type");
+        return type != null && type.isJsonPrimitive() && type.getAsJsonPrimitive().isString()
+                && SUPPORT_TYPE.contains(type.getAsString());
+    }
+
+    private static void handleSchema(JsonObject json, JsonObject schema) {
+        for (String key : jsKeys(json)) {
+            // __proto__ is not copied as an own property
+            if (!key.equals("__proto__")) {
+                schema.add(key, json.get(key));
+            }
+        }
+        if (schema.get("type").getAsString().equals("object")) {
+            schema.remove("properties");
+            parse(json.get("properties"), schema);
+        }
+        // the properties may have turned the schema into an array
+        if (schema.get("type").getAsString().equals("array")) {
+            schema.remove("items");
+            JsonObject items = new JsonObject();
+            schema.add("items", items);
+            parse(json.get("items"), items);
+        }
+    }
+
+    private static void handleArray(JsonArray array, JsonObject schema) {
+        schema.addProperty("type", "array");
+        JsonObject items = new JsonObject();
+        schema.add("items", items);
+        parse(array.size() > 0 ? array.get(0) : null, items);
+    }
+
+    private static void handleObject(JsonObject json, JsonObject schema) {
+        if (isSchema(json)) {
+            handleSchema(json, schema);
+            return;
+        }
+        schema.addProperty("type", "object");
+        JsonArray required = new JsonArray();
+        schema.add("required", required);
+        JsonObject props = new JsonObject();
+        schema.add("properties", props);
+        for (String key : jsKeys(json)) {
+            // assigning __proto__ sets the prototype of the properties, which is not printed
+            if (key.equals("__proto__")) {
+                continue;
+            }
+            JsonElement item = json.get(key);
+            JsonObject cur_schema = new JsonObject();
+            if (key.startsWith("*")) {
+                key = key.substring(1);
+                required.add(key);
+                if (key.equals("__proto__")) {
+                    continue;
+                }
+            }
+            props.add(key, cur_schema);
+            parse(item, cur_schema);
+        }
+    }
+
+    /**
+     * Returns the keys of an object in the order JavaScript enumerates them: array indexes in
+     * ascending order, then the other keys in insertion order.
+     */
+    private static List<String> jsKeys(JsonObject object) {
+        List<String> indexes = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (String key : object.keySet()) {
+            (isArrayIndex(key) ? indexes : keys).add(key);
+        }
+        indexes.sort((a, b) -> Long.compare(Long.parseLong(a), Long.parseLong(b)));
+        indexes.addAll(keys);
+        return indexes;
+    }
+
+    private static boolean isArrayIndex(String key) {
+        if (key.isEmpty() || key.length() > 10 || (key.length() > 1 && key.charAt(0) == '0')) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) < '0' || key.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return Long.parseLong(key) < 4294967295L;
+    }
+
+    // JSON.stringify(value, null, 2)
+    private static void stringify(JsonElement value, String indent, StringBuilder out) {
+        if (value == null || value.isJsonNull()) {
+            out.append("null");
+        } else if (value.isJsonObject()) {
+            JsonObject object = value.getAsJsonObject();
+            List<String> keys = jsKeys(object);
+            if (keys.isEmpty()) {
+                out.append("{}");
+                return;
+            }
+            String inner = indent + "  ";
+            out.append("{\n");
+            for (int i = 0; i < keys.size(); i++) {
+                out.append(inner);
+                quote(keys.get(i), out);
+                out.append(": ");
+                stringify(object.get(keys.get(i)), inner, out);
+                out.append(i < keys.size() - 1 ? ",\n" : "\n");
+            }
+            out.append(indent).append('}');
+        } else if (value.isJsonArray()) {
+            JsonArray array = value.getAsJsonArray();
+            if (array.size() == 0) {
+                out.append("[]");
+                return;
+            }
+            String inner = indent + "  ";
+            out.append("[\n");
+            for (int i = 0; i < array.size(); i++) {
+                out.append(inner);
+                stringify(array.get(i), inner, out);
+                out.append(i < array.size() - 1 ? ",\n" : "\n");
+            }
+            out.append(indent).append(']');
+        } else {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isString()) {
+                quote(primitive.getAsString(), out);
+            } else if (primitive.isNumber()) {
+                out.append(numberToString(primitive.getAsDouble()));
+            } else {
+                out.append(primitive.getAsBoolean());
+            }
+        }
+    }
+
+    private static void quote(String string, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\b': out.append("\\b"); break;
+                case '\f': out.append("\\f"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    boolean lone_surrogate = Character.isSurrogate(c) && !(Character.isHighSurrogate(c)
+                            ? i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))
+                            : i > 0 && Character.isHighSurrogate(string.charAt(i - 1)));
+                    if (c < 0x20 || lone_surrogate) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    // Number.prototype.toString
+    private static String numberToString(double number) {
+        if (Double.isNaN(number) || Double.isInfinite(number)) {
+            return "null";
+        }
+        if (number == 0) {
+            return "0";
+        }
+        BigDecimal decimal = new BigDecimal(Double.toString(number)).stripTrailingZeros();
+        double abs = Math.abs(number);
+        if (abs >= 1e-6 && abs < 1e21) {
+            return decimal.toPlainString();
+        }
+        String digits = decimal.unscaledValue().abs().toString();
+        int exponent = digits.length() - 1 - decimal.scale();
+        String mantissa = digits.length() > 1 ? digits.charAt(0) + "." + digits.substring(1) : digits;
+        return (number < 0 ? "-" : "") + mantissa + "e" + (exponent >= 0 ? "+" : "-") + Math.abs(exponent);
+    }
 }
@@ -1,11 +1,6 @@
 package Services.ResponseAnalyzer;
 
 import Entity.Header;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import java.util.List;
 /**
@@ -39,84 +34,82 @@ public class ResponseAnalyzer {
      * Converts a JSON response string into a {@link ResponseUnstructured} object containing
      * {@link StructuredObject} and {@link AtomicObject} instances.
      *
+     * <p>The response is parsed into a flattened {@link ResponseTree}; the text and the schema of
+     * the structured objects are built from it only when requested.
+     *
      * @param json_response the JSON string to analyze
      * @return a ResponseUnstructured object containing the parsed structure
      */
     public ResponseUnstructured getUnstructuredResponse(String json_response) {
         ResponseUnstructured responseUnstructured = new ResponseUnstructured();
-        StructuredObject structuredObject = new StructuredObject("All",json_response,"$");
+        ResponseTree tree = json_response.startsWith("{") || json_response.startsWith("[") ? ResponseTree.parse(json_response) : null;
+        StructuredObject structuredObject = new StructuredObject("All",json_response,tree,0,"$");
         responseUnstructured.getObjects().add(structuredObject);
         if(json_response.startsWith("{")) {
-            JsonObject jsonObject = new JsonParser().parse(json_response).getAsJsonObject();
-            visitNode(jsonObject, "$",  responseUnstructured.getObjects());
+            visitObject(tree, 0, "$", responseUnstructured.getObjects());
         } else if(json_response.startsWith("[")) {
-            JsonArray jsonArray = new JsonParser().parse(json_response).getAsJsonArray();
-            visitNode(jsonArray,"$",responseUnstructured.getObjects());
+            StructuredObject array = new StructuredObject("",null,tree,0,"$");
+            responseUnstructured.getObjects().add(array);
+            iterateJSONArray(tree, 0, "$", "", array.getObjects());
         }
         return responseUnstructured;
     }
     /**
-     * Recursively visits a JSON node and converts it into {@link StructuredObject} and {@link AtomicObject}.
+     * Recursively visits the members of a JSON object and converts them into {@link StructuredObject}
+     * and {@link AtomicObject}.
      *
-     * @param object the JSON node (can be {@link JsonObject} or {@link JsonArray})
+     * @param tree the parsed response
+     * @param node the JSON object node
      * @param xPath the current path in the JSON tree
      * @param objectList the list to populate with atomic and structured objects
      */
-    private void visitNode(Object object, String xPath, List<Object> objectList){
-        if(object.getClass() == JsonObject.class)
-        {
-            JsonObject node = (JsonObject)object;
-            if(node.isJsonNull()) return;
-            for(String key : node.keySet()){
-                JsonElement value = node.get(key);
-                if(value.isJsonPrimitive() || value.isJsonNull()) {
-                   // atomic node
-                    if(!value.isJsonNull()){
-                        objectList.add(new AtomicObject(value.getAsString(),key,String.format("%s.%s", xPath,key)));
-                    }else{
-                        //objectList.add(new AtomicObject(value.getAsString(),key,String.format("%s.%s", xPath,key)));
-                    }
-
-                } else if (value.isJsonObject()) {
-                    StructuredObject structuredObject = null;
-                    structuredObject = new StructuredObject(key,value.getAsJsonObject().toString(),String.format("%s.%s", xPath,key));
+    private void visitObject(ResponseTree tree, int node, String xPath, List<Object> objectList){
+        for(int c = tree.firstChild(node); c < tree.end(node); c = tree.end(c)) {
+            String key = tree.name(c);
+            switch (tree.kind(c)) {
+                case ResponseTree.OBJECT: {
+                    String path = xPath + "." + key;
+                    StructuredObject structuredObject = new StructuredObject(key,null,tree,c,path);
                     objectList.add(structuredObject);
-                    //visitNode(value.getAsJsonObject(), String.format("%s.%s", xPath,key), "".equals(varName) ? key.toString() :varName+"-"+key.toString(),structuredObject.getObjects());
-                    visitNode(value.getAsJsonObject(), String.format("%s.%s", xPath,key), structuredObject.getObjects());
-                }else if (value.isJsonArray()){
-                    JsonArray jsonArray = value.getAsJsonArray();
-                    StructuredObject structuredObject = new StructuredObject(key,jsonArray.toString(),String.format("%s.%s", xPath,key));
+                    visitObject(tree, c, path, structuredObject.getObjects());
+                    break;
+                }
+                case ResponseTree.ARRAY: {
+                    String path = xPath + "." + key;
+                    StructuredObject structuredObject = new StructuredObject(key,null,tree,c,path);
                     objectList.add(structuredObject);
-                    iterateJSONArray(jsonArray,String.format("%s.%s", xPath,key),key,structuredObject.getObjects());
+                    iterateJSONArray(tree, c, path, key, structuredObject.getObjects());
+                    break;
                 }
+                case ResponseTree.NULL:
+                    break;
+                default:
+                    // atomic node
+                    objectList.add(new AtomicObject(tree.value(c),key,xPath + "." + key));
             }
-        }else if(object.getClass() == JsonArray.class){
-            JsonArray jsonArray = (JsonArray)object;
-            StructuredObject structuredObject = null;
-            structuredObject = new StructuredObject("",jsonArray.toString(),xPath);
-            objectList.add(structuredObject);
-            iterateJSONArray(jsonArray,xPath,"",structuredObject.getObjects());
         }
     }
     /**
      * Iterates through a JSON array, converting each element into atomic or structured objects.
+     * Nested arrays and null elements are skipped.
      *
-     * @param jsonArray the JSON array to iterate
+     * @param tree the parsed response
+     * @param node the JSON array node
      * @param xPath the current path in the JSON tree
      * @param varName the variable name associated with array elements
      * @param objectsList the list to populate with parsed objects
      */
-    private void iterateJSONArray(JsonArray jsonArray,String xPath, String varName, List<Object> objectsList){
+    private void iterateJSONArray(ResponseTree tree, int node, String xPath, String varName, List<Object> objectsList){
         int id = 0;
-        for(JsonElement element : jsonArray){
-            //String forname =""+id+"";
-            if(element.isJsonPrimitive()){
-                objectsList.add(new AtomicObject(element.getAsString(),varName,String.format("%s.%s[%d]", xPath,varName,id)));
-            } else if (element.isJsonObject()){
-                StructuredObject structuredObject = null;
-                structuredObject = new StructuredObject(varName,element.getAsJsonObject().toString(),String.format("%s[%d]", xPath, id));
+        for(int c = tree.firstChild(node); c < tree.end(node); c = tree.end(c)) {
+            byte kind = tree.kind(c);
+            if(kind == ResponseTree.OBJECT){
+                String path = xPath + "[" + id + "]";
+                StructuredObject structuredObject = new StructuredObject(varName,null,tree,c,path);
                 objectsList.add(structuredObject);
-                visitNode(element.getAsJsonObject(), String.format("%s[%d]", xPath, id),structuredObject.getObjects());
+                visitObject(tree, c, path, structuredObject.getObjects());
+            } else if (kind != ResponseTree.ARRAY && kind != ResponseTree.NULL){
+                objectsList.add(new AtomicObject(tree.value(c),varName,xPath + "." + varName + "[" + id + "]"));
             }
             id++;
         }
@@ -0,0 +1,169 @@
+package Services.ResponseAnalyzer;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Inverted index over the atomic values of the analyzed HTTP responses.
+ *
+ * <p>The index maps every {@link AtomicObject#getValue() value} found in a response to the list of
+ * its {@link Occurrence occurrences}. Responses are added in HAR order and each response tree is
+ * visited in the same depth-first order used by the dependency checkers, so the occurrences of a
+ * value are sorted by response index and, within a response, by visit order. A checker can then
+ * replace the scan of every response in {@code [first_index_response, req_index)} with a single
+ * {@link #lookup(String, int, int)}.
+ *
+ * <p>The index also keeps the list of {@link ResponseUnstructured} it was built from, for the
+ * checks that still need to walk the response trees.
+ *
+ * <p>The {@link StructuredObject#getFingerprint() structural fingerprint} of every structured
+ * object is indexed as well, so that a request re-sending the content of a previous response
+ * object is found by {@link #lookupFingerprint(long, int, int)}.
+ */
+public class ResponseIndex {
+
+    /**
+     * A single occurrence of a value inside a response.
+     */
+    public static class Occurrence {
+        /** Index of the response (HAR entry) containing the value. */
+        public final int response_index;
+        /** The atomic object holding the value. */
+        public final AtomicObject atomicObject;
+        /** The structured object directly containing the atomic object, {@code null} at top level. */
+        public final StructuredObject father;
+        /** Structured objects from the top level down to {@link #father}, empty at top level. */
+        public final List<StructuredObject> path;
+
+        Occurrence(int response_index, AtomicObject atomicObject, List<StructuredObject> path) {
+            this.response_index = response_index;
+            this.atomicObject = atomicObject;
+            this.path = path;
+            this.father = path.isEmpty() ? null : path.get(path.size() - 1);
+        }
+    }
+
+    /**
+     * A single occurrence of a structured object inside a response.
+     */
+    public static class StructuredOccurrence {
+        /** Index of the response (HAR entry) containing the object. */
+        public final int response_index;
+        /** The structured object. */
+        public final StructuredObject structuredObject;
+
+        StructuredOccurrence(int response_index, StructuredObject structuredObject) {
+            this.response_index = response_index;
+            this.structuredObject = structuredObject;
+        }
+    }
+
+    private final List<ResponseUnstructured> responses;
+    private final Map<String, List<Occurrence>> values = new HashMap<>();
+    private final Map<Long, List<StructuredOccurrence>> fingerprints = new HashMap<>();
+
+    /**
+     * Creates an index backed by the given response list.
+     *
+     * @param responses list receiving the responses added through {@link #add(ResponseUnstructured)}
+     */
+    public ResponseIndex(List<ResponseUnstructured> responses) {
+        this.responses = responses;
+    }
+
+    /**
+     * Returns the indexed responses, in HAR order.
+     *
+     * @return list of responses
+     */
+    public List<ResponseUnstructured> getResponses() {
+        return responses;
+    }
+
+    /**
+     * Appends a response to the backing list and indexes its atomic values and the fingerprints
+     * of its structured objects.
+     *
+     * @param responseUnstructured the response, already completed with its header objects
+     */
+    public void add(ResponseUnstructured responseUnstructured) {
+        int response_index = responses.size();
+        responses.add(responseUnstructured);
+        visit(response_index, responseUnstructured.getObjects(), Collections.emptyList());
+    }
+
+    private void visit(int response_index, List<Object> objects, List<StructuredObject> path) {
+        for (Object o : objects) {
+            if (o.getClass() == AtomicObject.class) {
+                AtomicObject atomicObject = (AtomicObject) o;
+                if (atomicObject.getValue() != null) {
+                    values.computeIfAbsent(atomicObject.getValue(), k -> new ArrayList<>())
+                            .add(new Occurrence(response_index, atomicObject, path));
+                }
+            } else if (o.getClass() == StructuredObject.class) {
+                StructuredObject structuredObject = (StructuredObject) o;
+                if (structuredObject.hasFingerprint()) {
+                    fingerprints.computeIfAbsent(structuredObject.getFingerprint(), k -> new ArrayList<>())
+                            .add(new StructuredOccurrence(response_index, structuredObject));
+                }
+                List<StructuredObject> child_path = new ArrayList<>(path.size() + 1);
+                child_path.addAll(path);
+                child_path.add(structuredObject);
+                visit(response_index, structuredObject.getObjects(), Collections.unmodifiableList(child_path));
+            }
+        }
+    }
+
+    /**
+     * Returns the occurrences of a value in the responses with index in {@code [from, to)}.
+     *
+     * @param value the value to look up
+     * @param from  first response index, inclusive
+     * @param to    last response index, exclusive
+     * @return occurrences ordered by response index and visit order, possibly empty
+     */
+    public List<Occurrence> lookup(String value, int from, int to) {
+        if (value == null || from >= to) {
+            return Collections.emptyList();
+        }
+        List<Occurrence> occurrences = values.get(value);
+        if (occurrences == null) {
+            return Collections.emptyList();
+        }
+        int lo = lowerBound(occurrences, from, o -> o.response_index);
+        int hi = lowerBound(occurrences, to, o -> o.response_index);
+        return occurrences.subList(lo, hi);
+    }
+
+    /**
+     * Returns the structured objects with the given fingerprint in the responses with index in
+     * {@code [from, to)}.
+     *
+     * @param fingerprint the {@link StructuralFingerprint} to look up
+     * @param from        first response index, inclusive
+     * @param to          last response index, exclusive
+     * @return occurrences ordered by response index and pre-order, possibly empty
+     */
+    public List<StructuredOccurrence> lookupFingerprint(long fingerprint, int from, int to) {
+        List<StructuredOccurrence> occurrences = from < to ? fingerprints.get(fingerprint) : null;
+        if (occurrences == null) {
+            return Collections.emptyList();
+        }
+        int lo = lowerBound(occurrences, from, o -> o.response_index);
+        int hi = lowerBound(occurrences, to, o -> o.response_index);
+        return occurrences.subList(lo, hi);
+    }
+
+    private static <T> int lowerBound(List<T> occurrences, int response_index, ToIntFunction<T> index_of) {
+        int lo = 0, hi = occurrences.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (index_of.applyAsInt(occurrences.get(mid)) < response_index) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
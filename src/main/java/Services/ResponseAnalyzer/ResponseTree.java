@@ -0,0 +1,291 @@
+package Services.ResponseAnalyzer;
+
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * Flattened representation of a parsed JSON response.
+ *
+ * <p>The nodes of the JSON tree are stored in pre-order in parallel arrays: the node kind, the
+ * id of its member name in a shared name table (-1 for array elements), the text of primitive
+ * values, the index where the node sub-tree ends and the {@link StructuralFingerprint} of the node. The children of node {@code i} are found
+ * from {@code i + 1} to {@code end[i]}, jumping from a child {@code c} to {@code end[c]}.
+ *
+ * <p>The tree is filled by a streaming parse, so neither a Gson {@link JsonElement} tree nor the
+ * text of every sub-tree is kept. The compact JSON text of a node is rebuilt on demand by
+ * {@link #toJson(int)} and is the same text returned by {@link JsonElement#toString()}.
+ */
+class ResponseTree {
+
+    static final byte OBJECT = 0;
+    static final byte ARRAY = 1;
+    static final byte STRING = 2;
+    static final byte NUMBER = 3;
+    static final byte BOOLEAN = 4;
+    static final byte NULL = 5;
+
+    private byte[] kind = new byte[16];
+    private int[] name = new int[16];
+    private String[] value = new String[16];
+    private int[] end = new int[16];
+    private long[] fingerprint = new long[16];
+    private int size;
+
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> name_ids = new HashMap<>();
+
+    private ResponseTree() {
+    }
+
+    /**
+     * Parses a JSON text with the same lenient rules of {@link JsonParser#parseString(String)}.
+     *
+     * @param json the JSON text
+     * @return the tree, whose root is node 0
+     * @throws JsonParseException if the text is not valid JSON
+     */
+    static ResponseTree parse(String json) {
+        ResponseTree tree = new ResponseTree();
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.setLenient(true);
+            tree.read(reader, -1);
+            // like JsonParser, anything but whitespace after the value is checked strictly
+            reader.setLenient(false);
+            if (tree.kind[0] != NULL && reader.peek() != JsonToken.END_DOCUMENT)
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            return tree;
+        } catch (DuplicateMember e) {
+            // the later member replaces the earlier one in place, as in JsonObject
+            ResponseTree fallback = new ResponseTree();
+            fallback.add(JsonParser.parseString(json), -1);
+            return fallback;
+        } catch (MalformedJsonException | EOFException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        } catch (StackOverflowError | OutOfMemoryError e) {
+            throw new JsonParseException("Failed parsing JSON source to Json", e);
+        }
+    }
+
+    private static class DuplicateMember extends RuntimeException {
+        DuplicateMember() {
+            super(null, null, false, false);
+        }
+    }
+
+    private void read(JsonReader reader, int name_id) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT: {
+                int node = append(OBJECT, name_id, null);
+                reader.beginObject();
+                int members = 0;
+                Set<Integer> member_ids = null;
+                while (reader.hasNext()) {
+                    int member = nameId(reader.nextName());
+                    if (member_ids == null) {
+                        for (int c = node + 1; c < size; c = end[c]) {
+                            if (name[c] == member)
+                                throw new DuplicateMember();
+                        }
+                        if (++members == 16) {
+                            member_ids = new HashSet<>();
+                            for (int c = node + 1; c < size; c = end[c]) {
+                                member_ids.add(name[c]);
+                            }
+                            member_ids.add(member);
+                        }
+                    } else if (!member_ids.add(member)) {
+                        throw new DuplicateMember();
+                    }
+                    read(reader, member);
+                }
+                reader.endObject();
+                close(node);
+                break;
+            }
+            case BEGIN_ARRAY: {
+                int node = append(ARRAY, name_id, null);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    read(reader, -1);
+                }
+                reader.endArray();
+                close(node);
+                break;
+            }
+            case STRING:
+                append(STRING, name_id, reader.nextString());
+                break;
+            case NUMBER:
+                append(NUMBER, name_id, reader.nextString());
+                break;
+            case BOOLEAN:
+                append(BOOLEAN, name_id, String.valueOf(reader.nextBoolean()));
+                break;
+            case NULL:
+                reader.nextNull();
+                append(NULL, name_id, null);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected token: " + reader.peek());
+        }
+    }
+
+    private void add(JsonElement element, int name_id) {
+        if (element.isJsonObject()) {
+            int node = append(OBJECT, name_id, null);
+            for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                add(member.getValue(), nameId(member.getKey()));
+            }
+            close(node);
+        } else if (element.isJsonArray()) {
+            int node = append(ARRAY, name_id, null);
+            for (JsonElement item : element.getAsJsonArray()) {
+                add(item, -1);
+            }
+            close(node);
+        } else if (element.isJsonNull()) {
+            append(NULL, name_id, null);
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            byte primitive_kind = primitive.isBoolean() ? BOOLEAN : primitive.isNumber() ? NUMBER : STRING;
+            append(primitive_kind, name_id, primitive.getAsString());
+        }
+    }
+
+    private int nameId(String member) {
+        Integer id = name_ids.get(member);
+        if (id == null) {
+            id = names.size();
+            names.add(member);
+            name_ids.put(member, id);
+        }
+        return id;
+    }
+
+    private int append(byte node_kind, int name_id, String node_value) {
+        if (size == kind.length) {
+            int capacity = size * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            name = Arrays.copyOf(name, capacity);
+            value = Arrays.copyOf(value, capacity);
+            end = Arrays.copyOf(end, capacity);
+            fingerprint = Arrays.copyOf(fingerprint, capacity);
+        }
+        kind[size] = node_kind;
+        name[size] = name_id;
+        value[size] = node_value;
+        end[size] = size + 1;
+        fingerprint[size] = node_kind == NULL ? StructuralFingerprint.NULL
+                : node_value != null ? StructuralFingerprint.primitive(node_kind, node_value) : 0;
+        return size++;
+    }
+
+    // ends the sub-tree of a container node and computes its fingerprint from its children
+    private void close(int node) {
+        end[node] = size;
+        if (kind[node] == OBJECT) {
+            long sum = 0;
+            for (int c = node + 1; c < size; c = end[c]) {
+                sum += StructuralFingerprint.member(names.get(name[c]), fingerprint[c]);
+            }
+            fingerprint[node] = StructuralFingerprint.object(sum);
+        } else {
+            long hash = StructuralFingerprint.ARRAY_SEED;
+            for (int c = node + 1; c < size; c = end[c]) {
+                hash = StructuralFingerprint.element(hash, fingerprint[c]);
+            }
+            fingerprint[node] = StructuralFingerprint.array(hash);
+        }
+    }
+
+    /** @return the kind of a node */
+    byte kind(int node) {
+        return kind[node];
+    }
+
+    /** @return the member name of a node, null for array elements */
+    String name(int node) {
+        return name[node] < 0 ? null : names.get(name[node]);
+    }
+
+    /** @return the text of a primitive node, as returned by {@link JsonElement#getAsString()} */
+    String value(int node) {
+        return value[node];
+    }
+
+    /** @return the structural fingerprint of a node */
+    long fingerprint(int node) {
+        return fingerprint[node];
+    }
+
+    /** @return the first child of a node, or {@link #end(int)} if it has none */
+    int firstChild(int node) {
+        return node + 1;
+    }
+
+    /** @return the index following the sub-tree of a node, which is also its next sibling */
+    int end(int node) {
+        return end[node];
+    }
+
+    /**
+     * Rebuilds the compact JSON text of a node.
+     *
+     * @param node the node
+     * @return the text, equal to {@link JsonElement#toString()} of the same node
+     */
+    String toJson(int node) {
+        StringWriter out = new StringWriter();
+        try {
+            JsonWriter writer = new JsonWriter(out);
+            writer.setLenient(true);
+            write(writer, node);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toString();
+    }
+
+    private void write(JsonWriter writer, int node) throws IOException {
+        switch (kind[node]) {
+            case OBJECT:
+                writer.beginObject();
+                for (int c = node + 1; c < end[node]; c = end[c]) {
+                    writer.name(names.get(name[c]));
+                    write(writer, c);
+                }
+                writer.endObject();
+                break;
+            case ARRAY:
+                writer.beginArray();
+                for (int c = node + 1; c < end[node]; c = end[c]) {
+                    write(writer, c);
+                }
+                writer.endArray();
+                break;
+            case STRING:
+                writer.value(value[node]);
+                break;
+            case NUMBER:
+                writer.jsonValue(value[node]);
+                break;
+            case BOOLEAN:
+                writer.value(Boolean.parseBoolean(value[node]));
+                break;
+            default:
+                writer.nullValue();
+        }
+    }
+}
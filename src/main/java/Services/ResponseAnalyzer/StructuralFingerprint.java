@@ -0,0 +1,107 @@
+package Services.ResponseAnalyzer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Map;
+
+/**
+ * 64-bit structural fingerprint of a JSON value.
+ *
+ * <p>Two JSON values with the same content have the same fingerprint, whatever the order of the
+ * members of their objects: members are combined with a commutative sum, array elements in
+ * order. Primitives are hashed by kind and by their text ({@link JsonElement#getAsString()}),
+ * so {@code 1} and {@code "1"} differ. Numbers are hashed by their {@code double} value, which is
+ * how {@link JsonPrimitive#equals(Object)} compares parsed numbers: {@code 1}, {@code 1.0} and
+ * {@code 1e0} have the same fingerprint. Equal fingerprints do not guarantee equal values,
+ * callers needing certainty must compare the values.
+ *
+ * <p>The fingerprints of the nodes of a parsed response are computed by {@link ResponseTree}
+ * with the same functions and are available through {@link StructuredObject#getFingerprint()}.
+ */
+public final class StructuralFingerprint {
+
+    static final long NULL = 0x6A09E667F3BCC908L;
+    private static final long OBJECT_SEED = 0xBB67AE8584CAA73BL;
+    static final long ARRAY_SEED = 0x3C6EF372FE94F82BL;
+
+    private StructuralFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of a JSON value.
+     *
+     * @param element the value
+     * @return the fingerprint
+     */
+    public static long of(JsonElement element) {
+        if (element.isJsonObject()) {
+            long sum = 0;
+            for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                sum += member(member.getKey(), of(member.getValue()));
+            }
+            return object(sum);
+        } else if (element.isJsonArray()) {
+            long hash = ARRAY_SEED;
+            for (JsonElement item : element.getAsJsonArray()) {
+                hash = element(hash, of(item));
+            }
+            return array(hash);
+        } else if (element.isJsonNull()) {
+            return NULL;
+        }
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        byte kind = primitive.isBoolean() ? ResponseTree.BOOLEAN : primitive.isNumber() ? ResponseTree.NUMBER : ResponseTree.STRING;
+        return primitive(kind, primitive.getAsString());
+    }
+
+    static long primitive(byte kind, String value) {
+        if (kind == ResponseTree.NUMBER) {
+            value = normalizeNumber(value);
+        }
+        return mix(hash(value) * 31 + kind);
+    }
+
+    private static String normalizeNumber(String value) {
+        try {
+            double number = Double.parseDouble(value);
+            // -0.0 == 0.0 for JsonPrimitive
+            return Double.toString(number == 0 ? 0.0 : number);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    /** @return the term added to the sum of an object for one of its members */
+    static long member(String name, long fingerprint) {
+        return mix(hash(name) ^ Long.rotateLeft(fingerprint, 29));
+    }
+
+    static long object(long member_sum) {
+        return mix(OBJECT_SEED + member_sum);
+    }
+
+    /** @return the running hash of an array after one more element */
+    static long element(long hash, long fingerprint) {
+        return hash * 0x9E3779B97F4A7C15L + fingerprint;
+    }
+
+    static long array(long hash) {
+        return mix(hash ^ ARRAY_SEED);
+    }
+
+    private static long hash(String s) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
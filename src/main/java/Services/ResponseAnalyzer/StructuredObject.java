@@ -1,8 +1,8 @@
 package Services.ResponseAnalyzer;
 
 
+import com.google.gson.JsonParser;
 import com.google.gson.annotations.SerializedName;
-import com.squareup.okhttp.*;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -19,6 +19,10 @@ import static Services.ResponseAnalyzer.JsonSchemaGenerator.generateJSONSchema;
  *
  * <p>Upon creation, this class attempts to generate a JSON schema representation of its
  * {@link #value} by calling {@link JsonSchemaGenerator#generateJSONSchema(String)}.
+ *
+ * <p>Objects created by {@link ResponseAnalyzer} are views over a {@link ResponseTree} node:
+ * their value and schema are only built the first time they are requested, or when
+ * {@link #materialize()} is called before the object is serialized.
  */
 public class StructuredObject implements Serializable {
 
@@ -43,12 +47,34 @@ public class StructuredObject implements Serializable {
             }
         //}
     }
+    /**
+     * Constructs a StructuredObject whose schema, and value if not given, are built on first
+     * access.
+     *
+     * @param name  the name of the object
+     * @param value the raw JSON string of the object, or null to rebuild it from the tree
+     * @param tree  the parsed response containing the object, or null
+     * @param node  the node of the object in the tree
+     * @param xpath the XPath-like path of the object
+     */
+    StructuredObject(String name, String value, ResponseTree tree, int node, String xpath) {
+        this.name = name;
+        this.value = value;
+        this.xpath = xpath;
+        this.objects = new ArrayList<>();
+        this.tree = tree;
+        this.node = node;
+        this.lazy = true;
+    }
     /** Returns the name of the object. */
     public String getName() {
         return name;
     }
     /** Returns the value of the object. */
-    public String getValue() {
+    public synchronized String getValue() {
+        if (value == null && tree != null) {
+            value = tree.toJson(node);
+        }
         return value;
     }
     /** Returns the list of child objects contained within this structured object. */
@@ -68,10 +94,15 @@ public class StructuredObject implements Serializable {
         this.objects = objects;
     }
 
-    public void setSchemaString(String schemaString) {
+    public synchronized void setSchemaString(String schemaString) {
         this.schemaString = schemaString;
     }
 
+    /** Tells whether the schema is still to be generated on first access. */
+    synchronized boolean isSchemaPending() {
+        return schemaString == null && lazy;
+    }
+
     @SerializedName("name")
     public String name;
     @SerializedName("value")
@@ -90,17 +121,67 @@ public class StructuredObject implements Serializable {
     @SerializedName("objects")
     public List<Object> objects;
     /** Returns the JSON schema string generated for this object. */
-    public String getSchemaString() {
+    public synchronized String getSchemaString() {
+        if (schemaString == null && lazy) {
+            try {
+                schemaString = generateJSONSchema(getValue());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
         return schemaString;
     }
 
+    /**
+     * Returns the {@link StructuralFingerprint} of the object. It is computed while parsing the
+     * response, or from the value for objects that were not created by {@link ResponseAnalyzer}.
+     *
+     * @return the fingerprint
+     * @throws com.google.gson.JsonParseException if the value is not valid JSON
+     */
+    public synchronized long getFingerprint() {
+        if (tree != null) {
+            return tree.fingerprint(node);
+        }
+        if (!fingerprinted) {
+            fingerprint = StructuralFingerprint.of(JsonParser.parseString(getValue()));
+            fingerprinted = true;
+        }
+        return fingerprint;
+    }
+
+    /** @return true if the fingerprint is known without parsing the value */
+    boolean hasFingerprint() {
+        return tree != null;
+    }
+
+    /**
+     * Builds the value and the schema of this object and of all its children, so that every
+     * field is set when the object is serialized or leaves the response it was parsed from.
+     */
+    public void materialize() {
+        getValue();
+        getSchemaString();
+        for (Object o : objects) {
+            if (o.getClass() == StructuredObject.class) {
+                ((StructuredObject) o).materialize();
+            }
+        }
+    }
+
     String schemaString;
+    // source of the lazily built value, not serialized
+    private transient ResponseTree tree;
+    private transient int node;
+    private transient boolean lazy;
+    private transient long fingerprint;
+    private transient boolean fingerprinted;
     /**
      * Returns a string representation of the object, including its name, value, number of child objects,
      * JSON schema, and XPath.
      */
     public String toString(){
-        return "[STRUCTURED] name: "+name+" value:"+value+" size:"+objects.size()+"\n [JSON_SCHEMA]: "+getSchemaString()+" XPATH:"+xpath;
+        return "[STRUCTURED] name: "+name+" value:"+getValue()+" size:"+objects.size()+"\n [JSON_SCHEMA]: "+getSchemaString()+" XPATH:"+xpath;
     }
 
 
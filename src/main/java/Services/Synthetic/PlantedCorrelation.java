@@ -0,0 +1,74 @@
+package Services.Synthetic;
+
+import Entity.DependencyGraph;
+import Entity.Edge;
+import Entity.MyNode;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+/**
+ * A dependency planted by {@link SyntheticHarGenerator}: a value of the response of an entry
+ * sent back by the request of a later entry.
+ *
+ * <p>The type is the {@link Edge#type} of the edge the analysis is expected to find
+ * ({@code url}, {@code header}, {@code queryparam}, {@code bodyjson}, {@code bodyue},
+ * {@code cookie}).
+ */
+public class PlantedCorrelation {
+
+    @SerializedName("type")
+    public final String type;
+    @SerializedName("from_index")
+    public final int from_index;
+    @SerializedName("to_index")
+    public final int to_index;
+    @SerializedName("name")
+    public final String name;
+    @SerializedName("value")
+    public final String value;
+
+    public PlantedCorrelation(String type, int from_index, int to_index, String name, String value) {
+        this.type = type;
+        this.from_index = from_index;
+        this.to_index = to_index;
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * Tells whether the analysis can find the correlation. A request repeated in the HAR is a
+     * single node, and its later occurrences only depend on the responses following the previous
+     * occurrence: an older source is found from the previous occurrence instead.
+     *
+     * @param dependencyGraph graph built from the generated HAR
+     * @return true if the correlation is in the scope of the analysis
+     */
+    public boolean isExpected(DependencyGraph dependencyGraph) {
+        List<Integer> indexs = dependencyGraph.getNodeByIndex(to_index).getIndexs();
+        int occurrence = indexs.indexOf(to_index);
+        return occurrence <= 0 || from_index > indexs.get(occurrence - 1);
+    }
+
+    /**
+     * Tells whether an edge of the analysis is this correlation: same type and value, between
+     * the same entries.
+     *
+     * @param edge an edge of the graph built from the generated HAR
+     * @return true if the edge detects the correlation
+     */
+    public boolean isDetectedBy(Edge edge) {
+        return edge.type.equals(type) && edge.dependency != null && value.equals(edge.dependency.getValue())
+                && matches(edge.from, edge.from_index, from_index) && matches(edge.to, edge.to_index, to_index);
+    }
+
+    // edges without indexes (cookies) are matched by their nodes
+    private static boolean matches(MyNode node, int edge_index, int index) {
+        return edge_index >= 0 ? edge_index == index : node.getIndexs().contains(index);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name + "=" + value + " [" + from_index + " -> " + to_index + "]";
+    }
+}
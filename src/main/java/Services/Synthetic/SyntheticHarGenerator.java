@@ -0,0 +1,581 @@
+package Services.Synthetic;
+
+import Entity.DependencyGraph;
+import Entity.Edge;
+import Services.Dependencies.ExtractDependencies;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Generates synthetic HAR files, to measure the throughput and the recall of the dependency
+ * analysis on recordings of any size.
+ *
+ * <p>The generated entries follow the {@code Entity.Har} model and mimic a REST application with
+ * a login, cookie sessions and a few WebSocket channels:
+ * <ul>
+ *   <li>each JSON response has an {@code id} and nested members up to the configured depth;</li>
+ *   <li>requests send back the ids of recent responses in their url path, query parameters,
+ *   JSON or form bodies, the login token in the {@code Authorization} header and the session
+ *   cookie set by the last {@code Set-Cookie} response header;</li>
+ *   <li>WebSocket entries carry {@code _webSocketMessages} with ids in both directions.</li>
+ * </ul>
+ * Every value sent back is recorded as a {@link PlantedCorrelation} with the positions of its
+ * source and target entries, see {@link #getCorrelations()}. Ids inside WebSocket messages are
+ * not recorded, as the analysis does not look at them.
+ *
+ * <p>Two kinds of values make the detection harder: leaf values drawn from a small pool shared
+ * by all responses (the collision rate), which match many responses, and request values not
+ * found in any response (the noise rate), which must not produce dependencies.
+ *
+ * <p>The output only depends on the seed and the settings.
+ */
+public class SyntheticHarGenerator {
+
+    private static final String[] RESOURCES = {"rooms", "users", "items", "orders", "messages", "devices"};
+    private static final String[] MEMBERS = {"name", "status", "count", "owner", "code", "value", "label", "type"};
+    private static final String[] SHARED_VALUES = {"0", "1", "2", "true", "false", "active", "admin", "default", "en", "null"};
+    private static final String SESSION_COOKIE = "SESSION";
+    private static final long START_TIME = Instant.parse("2024-01-01T09:00:00Z").toEpochMilli();
+
+    private final Gson gson = new Gson();
+    private final long seed;
+    private int entries = 100;
+    private int depth = 2;
+    private double collision_rate = 0.1;
+    private double noise_rate = 0.1;
+    private double websocket_rate = 0.02;
+    private double form_rate = 0.3;
+
+    /**
+     * A response id that later requests can send back.
+     */
+    private static class Source {
+        final int index;
+        final String resource;
+        final String id;
+
+        Source(int index, String resource, String id) {
+            this.index = index;
+            this.resource = resource;
+            this.id = id;
+        }
+    }
+
+    private Random random;
+    private final List<Source> sources = new ArrayList<>();
+    private final List<PlantedCorrelation> correlations = new ArrayList<>();
+    private String token;
+    private String session;
+    private int session_index;
+
+    /**
+     * @param seed seed of the generated values
+     */
+    public SyntheticHarGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param entries number of HAR entries, at least 1 (default 100)
+     */
+    public void setEntries(int entries) {
+        if (entries < 1)
+            throw new IllegalArgumentException("entries must be at least 1");
+        this.entries = entries;
+    }
+
+    /**
+     * @param depth nesting depth of the response objects, 0 for flat objects (default 2)
+     */
+    public void setDepth(int depth) {
+        if (depth < 0)
+            throw new IllegalArgumentException("depth must not be negative");
+        this.depth = depth;
+    }
+
+    /**
+     * @param collision_rate fraction of the response leaf values drawn from the shared pool
+     *                       (default 0.1)
+     */
+    public void setCollisionRate(double collision_rate) {
+        this.collision_rate = rate(collision_rate);
+    }
+
+    /**
+     * @param noise_rate fraction of the request ids not found in any response (default 0.1)
+     */
+    public void setNoiseRate(double noise_rate) {
+        this.noise_rate = rate(noise_rate);
+    }
+
+    /**
+     * @param websocket_rate fraction of the entries that are WebSocket connections (default 0.02)
+     */
+    public void setWebSocketRate(double websocket_rate) {
+        this.websocket_rate = rate(websocket_rate);
+    }
+
+    /**
+     * @param form_rate fraction of the request bodies that are url encoded forms instead of JSON
+     *                  (default 0.3)
+     */
+    public void setFormRate(double form_rate) {
+        this.form_rate = rate(form_rate);
+    }
+
+    private static double rate(double rate) {
+        if (rate < 0 || rate > 1)
+            throw new IllegalArgumentException("rates must be between 0 and 1");
+        return rate;
+    }
+
+    /**
+     * @return the correlations planted in the last written HAR, ordered by target entry
+     */
+    public List<PlantedCorrelation> getCorrelations() {
+        return Collections.unmodifiableList(correlations);
+    }
+
+    /**
+     * Writes a HAR file.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes a HAR document. Entries are generated and written one at a time, so the size of the
+     * document is not limited by the memory.
+     *
+     * @param out where the document is written
+     * @throws IOException if the document cannot be written
+     */
+    public void write(Writer out) throws IOException {
+        random = new Random(seed);
+        sources.clear();
+        correlations.clear();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject().name("log").beginObject();
+        writer.name("version").value("1.2");
+        writer.name("pages").beginArray().endArray();
+        writer.name("creator").beginObject()
+                .name("name").value(getClass().getSimpleName())
+                .name("version").value("1.0")
+                .endObject();
+        writer.name("entries").beginArray();
+        for (int i = 0; i < entries; i++) {
+            gson.toJson(entry(i), writer);
+        }
+        writer.endArray().endObject().endObject();
+        writer.flush();
+    }
+
+    /**
+     * Writes the correlations planted in the last written HAR as a JSON array.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCorrelations(File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(correlations, out);
+        }
+    }
+
+    private JsonObject entry(int index) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("startedDateTime", Instant.ofEpochMilli(START_TIME + index * 250L).toString());
+        entry.addProperty("time", 20 + random.nextInt(200));
+        if (index == 0) {
+            entry.add("request", login());
+            entry.add("response", loginResponse());
+        } else if (random.nextDouble() < websocket_rate) {
+            entry.add("request", webSocketRequest(index));
+            entry.add("response", webSocketResponse());
+            entry.add("_webSocketMessages", webSocketMessages(index));
+        } else {
+            String resource = RESOURCES[random.nextInt(RESOURCES.length)];
+            entry.add("request", request(index, resource));
+            entry.add("response", response(index, resource));
+        }
+        entry.addProperty("_resourceType", entry.has("_webSocketMessages") ? "websocket" : "fetch");
+        return entry;
+    }
+
+    private JsonObject login() {
+        JsonObject request = request("POST", "http://localhost:8080/api/login");
+        JsonObject body = new JsonObject();
+        body.addProperty("username", "user" + random.nextInt(1000));
+        body.addProperty("password", unique());
+        request.add("postData", jsonBody(body));
+        return request;
+    }
+
+    private JsonObject loginResponse() {
+        token = unique();
+        JsonObject body = new JsonObject();
+        String id = unique();
+        body.addProperty("id", id);
+        body.addProperty("token", token);
+        body.addProperty("expires", 3600);
+        sources.add(new Source(0, "users", id));
+        JsonObject response = response(body);
+        setSession(response, 0);
+        return response;
+    }
+
+    private JsonObject request(int index, String resource) {
+        int kind = random.nextInt(10);
+        String method = kind < 5 ? "GET" : kind < 8 ? "POST" : kind < 9 ? "PUT" : "DELETE";
+        String url = "http://localhost:8080/api/" + resource;
+        if (!method.equals("POST"))
+            url += "/" + reference(index, source(resource), "url", null);
+        JsonObject request = request(method, url);
+        authenticate(request, index);
+        if (method.equals("GET") && random.nextInt(3) == 0) {
+            Source filter = source();
+            String name = singular(filter.resource) + "Id";
+            String filter_value = reference(index, filter, "queryparam", name);
+            String page = String.valueOf(random.nextInt(10));
+            JsonArray query = request.getAsJsonArray("queryString");
+            query.add(pair("page", page));
+            query.add(pair(name, filter_value));
+            request.addProperty("url", url + "?page=" + page + "&" + name + "=" + filter_value);
+        }
+        if (method.equals("POST") || method.equals("PUT")) {
+            Source related = source();
+            String name = singular(related.resource) + "Id";
+            if (random.nextDouble() < form_rate) {
+                String value = reference(index, related, "bodyue", name);
+                String label = unique();
+                JsonArray params = new JsonArray();
+                params.add(pair("label", label));
+                params.add(pair(name, value));
+                JsonObject postData = new JsonObject();
+                postData.addProperty("mimeType", "application/x-www-form-urlencoded");
+                postData.addProperty("text", "label=" + label + "&" + name + "=" + value);
+                postData.add("params", params);
+                request.add("postData", postData);
+            } else {
+                JsonObject body = new JsonObject();
+                body.addProperty("label", unique());
+                body.addProperty(name, reference(index, related, "bodyjson", name));
+                request.add("postData", jsonBody(body));
+            }
+        }
+        return request;
+    }
+
+    private JsonObject request(String method, String url) {
+        JsonObject request = new JsonObject();
+        request.addProperty("method", method);
+        request.addProperty("url", url);
+        request.addProperty("httpVersion", "HTTP/1.1");
+        JsonArray headers = new JsonArray();
+        header(headers, "Accept", "application/json, text/plain, */*");
+        header(headers, "Host", "localhost:8080");
+        request.add("headers", headers);
+        request.add("queryString", new JsonArray());
+        request.add("cookies", new JsonArray());
+        request.addProperty("headersSize", -1);
+        request.addProperty("bodySize", 0);
+        return request;
+    }
+
+    // the login token and the session cookie
+    private void authenticate(JsonObject request, int index) {
+        header(request.getAsJsonArray("headers"), "Authorization", "Bearer " + token);
+        correlations.add(new PlantedCorrelation("header", 0, index, "Authorization", token));
+        header(request.getAsJsonArray("headers"), "Cookie", SESSION_COOKIE + "=" + session);
+        request.getAsJsonArray("cookies").add(pair(SESSION_COOKIE, session));
+        correlations.add(new PlantedCorrelation("cookie", session_index, index, SESSION_COOKIE, session));
+    }
+
+    private JsonObject response(int index, String resource) {
+        JsonObject body = object(depth);
+        String id = unique();
+        body.addProperty("id", id);
+        sources.add(new Source(index, resource, id));
+        JsonObject response = response(body);
+        // the session is renewed from time to time
+        if (random.nextInt(20) == 0)
+            setSession(response, index);
+        return response;
+    }
+
+    private JsonObject response(JsonObject body) {
+        JsonObject response = new JsonObject();
+        response.addProperty("status", 200);
+        response.addProperty("statusText", "OK");
+        response.addProperty("httpVersion", "HTTP/1.1");
+        JsonArray headers = new JsonArray();
+        header(headers, "Content-Type", "application/json");
+        response.add("headers", headers);
+        response.add("cookies", new JsonArray());
+        String text = gson.toJson(body);
+        response.add("content", content("application/json", text));
+        response.addProperty("redirectURL", "");
+        response.addProperty("headersSize", -1);
+        response.addProperty("bodySize", text.length());
+        return response;
+    }
+
+    private void setSession(JsonObject response, int index) {
+        session = unique();
+        session_index = index;
+        header(response.getAsJsonArray("headers"), "Set-Cookie", SESSION_COOKIE + "=" + session + "; Path=/; HttpOnly");
+        response.getAsJsonArray("cookies").add(pair(SESSION_COOKIE, session));
+    }
+
+    private JsonObject webSocketRequest(int index) {
+        JsonObject request = request("GET", "ws://localhost:8080/ws/updates?token=" + token);
+        JsonArray headers = request.getAsJsonArray("headers");
+        header(headers, "Connection", "Upgrade");
+        header(headers, "Upgrade", "websocket");
+        header(headers, "Sec-WebSocket-Version", "13");
+        header(headers, "Sec-WebSocket-Key", Base64.getEncoder().encodeToString(unique().getBytes(StandardCharsets.UTF_8)));
+        request.getAsJsonArray("queryString").add(pair("token", token));
+        correlations.add(new PlantedCorrelation("queryparam", 0, index, "token", token));
+        request.getAsJsonArray("cookies").add(pair(SESSION_COOKIE, session));
+        correlations.add(new PlantedCorrelation("cookie", session_index, index, SESSION_COOKIE, session));
+        return request;
+    }
+
+    private JsonObject webSocketResponse() {
+        JsonObject response = new JsonObject();
+        response.addProperty("status", 101);
+        response.addProperty("statusText", "Switching Protocols");
+        response.addProperty("httpVersion", "HTTP/1.1");
+        JsonArray headers = new JsonArray();
+        header(headers, "Connection", "Upgrade");
+        header(headers, "Upgrade", "websocket");
+        response.add("headers", headers);
+        response.add("cookies", new JsonArray());
+        response.add("content", content("x-unknown", ""));
+        response.addProperty("redirectURL", "");
+        response.addProperty("headersSize", -1);
+        response.addProperty("bodySize", 0);
+        return response;
+    }
+
+    private JsonArray webSocketMessages(int index) {
+        JsonArray messages = new JsonArray();
+        double time = (START_TIME + index * 250L) / 1000.0;
+        int count = 2 + random.nextInt(6);
+        for (int m = 0; m < count; m++) {
+            JsonObject data = new JsonObject();
+            boolean send = m % 2 == 0;
+            Source source = source();
+            data.addProperty("type", send ? "subscribe" : "update");
+            data.addProperty(singular(source.resource) + "Id", send ? source.id : unique());
+            if (!send)
+                data.add("payload", object(Math.min(depth, 1)));
+            JsonObject message = new JsonObject();
+            message.addProperty("type", send ? "request" : "response");
+            message.addProperty("time", time + m * 0.05);
+            message.addProperty("opcode", 1);
+            message.addProperty("data", data.toString());
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    // a JSON object with a few leaf members and, above depth 0, a nested object and an array of objects
+    private JsonObject object(int levels) {
+        JsonObject object = new JsonObject();
+        int members = 2 + random.nextInt(4);
+        for (int m = 0; m < members; m++) {
+            object.addProperty(MEMBERS[random.nextInt(MEMBERS.length)], leaf());
+        }
+        if (levels > 0) {
+            object.add("detail", object(levels - 1));
+            JsonArray list = new JsonArray();
+            for (int e = random.nextInt(3); e > 0; e--) {
+                list.add(object(levels - 1));
+            }
+            object.add("list", list);
+        }
+        return object;
+    }
+
+    private String leaf() {
+        return random.nextDouble() < collision_rate ? SHARED_VALUES[random.nextInt(SHARED_VALUES.length)] : unique();
+    }
+
+    // one of the last responses with an id, most requests follow up on recent ones
+    private Source source() {
+        int window = Math.min(sources.size(), 20);
+        return sources.get(sources.size() - 1 - random.nextInt(window));
+    }
+
+    // the last response of a resource, or a recent response if there is none
+    private Source source(String resource) {
+        for (int s = sources.size() - 1; s >= 0 && s >= sources.size() - 100; s--) {
+            if (sources.get(s).resource.equals(resource))
+                return sources.get(s);
+        }
+        return source();
+    }
+
+    // the id of a source, recorded as a correlation, or a noise value found in no response
+    private String reference(int index, Source source, String type, String name) {
+        if (random.nextDouble() < noise_rate)
+            return unique();
+        correlations.add(new PlantedCorrelation(type, source.index, index, name, source.id));
+        return source.id;
+    }
+
+    private String unique() {
+        return Long.toHexString(random.nextLong() & Long.MAX_VALUE);
+    }
+
+    private static String singular(String resource) {
+        return resource.substring(0, resource.length() - 1);
+    }
+
+    private static JsonObject content(String mimeType, String text) {
+        JsonObject content = new JsonObject();
+        content.addProperty("size", text.length());
+        content.addProperty("mimeType", mimeType);
+        content.addProperty("text", text);
+        return content;
+    }
+
+    private static JsonObject jsonBody(JsonObject body) {
+        JsonObject postData = new JsonObject();
+        postData.addProperty("mimeType", "application/json");
+        postData.addProperty("text", body.toString());
+        return postData;
+    }
+
+    private static void header(JsonArray headers, String name, String value) {
+        headers.add(pair(name, value));
+    }
+
+    private static JsonObject pair(String name, String value) {
+        JsonObject pair = new JsonObject();
+        pair.addProperty("name", name);
+        pair.addProperty("value", value);
+        return pair;
+    }
+
+    /**
+     * Runs the dependency analysis on a generated HAR and prints its time and, for each type of
+     * planted correlation, how many of those in the scope of the analysis have been found.
+     *
+     * @param har          the generated HAR
+     * @param correlations the correlations planted in it
+     * @throws IOException if the HAR cannot be read
+     */
+    public static void evaluate(File har, List<PlantedCorrelation> correlations) throws IOException {
+        long start = System.nanoTime();
+        ExtractDependencies extractDependencies = new ExtractDependencies(har, true);
+        extractDependencies.setParallelism(Runtime.getRuntime().availableProcessors());
+        extractDependencies.analyze_responses();
+        long analyzed = System.nanoTime();
+        DependencyGraph dependencyGraph = extractDependencies.build_dependencies_graph();
+        long built = System.nanoTime();
+        System.out.println("entries: " + extractDependencies.getHar().getLog().getEntries().length
+                + ", edges: " + dependencyGraph.edges.size()
+                + ", analysis: " + (analyzed - start) / 1_000_000 + "ms"
+                + ", graph: " + (built - analyzed) / 1_000_000 + "ms");
+        // edges by target entry, edges without index by every entry of their target node
+        Map<Integer, List<Edge>> edges_by_target = new HashMap<>();
+        for (Edge edge : dependencyGraph.edges) {
+            for (int to : edge.to_index >= 0 ? List.of(edge.to_index) : edge.to.getIndexs()) {
+                edges_by_target.computeIfAbsent(to, k -> new ArrayList<>()).add(edge);
+            }
+        }
+        Map<String, int[]> found_by_type = new TreeMap<>();
+        for (PlantedCorrelation correlation : correlations) {
+            if (!correlation.isExpected(dependencyGraph))
+                continue;
+            int[] found = found_by_type.computeIfAbsent(correlation.type, k -> new int[2]);
+            found[1]++;
+            for (Edge edge : edges_by_target.getOrDefault(correlation.to_index, List.of())) {
+                if (correlation.isDetectedBy(edge)) {
+                    found[0]++;
+                    break;
+                }
+            }
+        }
+        int found = 0;
+        int expected = 0;
+        for (Map.Entry<String, int[]> type : found_by_type.entrySet()) {
+            found += type.getValue()[0];
+            expected += type.getValue()[1];
+            System.out.println(String.format("%-12s recall %6.2f%% (%d/%d)", type.getKey(),
+                    100.0 * type.getValue()[0] / type.getValue()[1], type.getValue()[0], type.getValue()[1]));
+        }
+        System.out.println(String.format("%-12s recall %6.2f%% (%d/%d)", "all", expected == 0 ? 100.0 : 100.0 * found / expected, found, expected));
+    }
+
+    /**
+     * Generates a HAR and the JSON file of its planted correlations ({@code <output>.correlations.json}).
+     *
+     * @param args {@code <output file> <entries> [options]}, run without arguments for the options
+     * @throws IOException if the files cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: SyntheticHarGenerator <output file> <entries> [--depth <n>] [--collision-rate <r>]"
+                    + " [--noise-rate <r>] [--websocket-rate <r>] [--form-rate <r>] [--seed <n>] [--evaluate]");
+            System.exit(1);
+        }
+        File har = new File(args[0]);
+        long seed = 0;
+        boolean evaluate = false;
+        Map<String, String> options = new HashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--evaluate"))
+                evaluate = true;
+            else if (i + 1 < args.length)
+                options.put(args[i], args[++i]);
+            else
+                throw new IllegalArgumentException("Missing value of " + args[i]);
+        }
+        if (options.containsKey("--seed"))
+            seed = Long.parseLong(options.remove("--seed"));
+        SyntheticHarGenerator generator = new SyntheticHarGenerator(seed);
+        generator.setEntries(Integer.parseInt(args[1]));
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            switch (option.getKey()) {
+                case "--depth":
+                    generator.setDepth(Integer.parseInt(option.getValue()));
+                    break;
+                case "--collision-rate":
+                    generator.setCollisionRate(Double.parseDouble(option.getValue()));
+                    break;
+                case "--noise-rate":
+                    generator.setNoiseRate(Double.parseDouble(option.getValue()));
+                    break;
+                case "--websocket-rate":
+                    generator.setWebSocketRate(Double.parseDouble(option.getValue()));
+                    break;
+                case "--form-rate":
+                    generator.setFormRate(Double.parseDouble(option.getValue()));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option.getKey());
+            }
+        }
+        generator.write(har);
+        generator.writeCorrelations(new File(har.getPath() + ".correlations.json"));
+        System.out.println(har + ": " + generator.getCorrelations().size() + " planted correlations");
+        if (evaluate)
+            evaluate(har, generator.getCorrelations());
+    }
+}
@@ -176,7 +176,7 @@ public class CustomCorrelationTableModel extends AbstractTableModel {
                     return  atomicObject.getValue();
                 }else if(item.response.getClass() == StructuredObject.class){
                     StructuredObject structuredObject =(StructuredObject) item.response;
-                    return structuredObject.value;
+                    return structuredObject.getValue();
                 }
             }
             case 2:{
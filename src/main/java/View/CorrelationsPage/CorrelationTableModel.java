@@ -1,7 +1,15 @@
 package View.CorrelationsPage;
 
+import Entity.SavedGraphView;
+import Properties.Paths;
+
+import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CorrelationTableModel extends AbstractTableModel {
 
@@ -23,6 +31,8 @@ public class CorrelationTableModel extends AbstractTableModel {
 
     private ArrayList<String> filename;
     private ArrayList<Boolean> filenameCheck;
+    // number of correlations by file name, read in background from the index of the saved files
+    private final Map<String,Integer> correlationsCount = new ConcurrentHashMap<>();
 
     public CorrelationTableModel(ArrayList<String>list){
         this.filename=list;
@@ -30,6 +40,39 @@ public class CorrelationTableModel extends AbstractTableModel {
         for(int i=0; i< list.size();i++) {
             filenameCheck.add(false);
         }
+        countCorrelations(new ArrayList<>(list));
+    }
+
+    // graphs saved as JSON have no index and are left without count rather than parsed
+    private void countCorrelations(List<String> names) {
+        new SwingWorker<Void,Void>() {
+            private final List<String> unreadable = new ArrayList<>();
+
+            @Override
+            protected Void doInBackground() {
+                for (String name : names) {
+                    try {
+                        int count = SavedGraphView.readEdgeCount(new File(Paths.dep_saved_path+"/"+name));
+                        if (count >= 0) {
+                            correlationsCount.put(name, count);
+                        }
+                    } catch (Exception e) {
+                        unreadable.add(name+": "+e.getMessage());
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (getRowCount() > 0) {
+                    fireTableRowsUpdated(0, getRowCount()-1);
+                }
+                if (!unreadable.isEmpty()) {
+                    JOptionPane.showMessageDialog(null,"Unable to read "+String.join("\n",unreadable),"Error",JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
     }
 
     @Override
@@ -38,7 +81,7 @@ public class CorrelationTableModel extends AbstractTableModel {
     }
     @Override
     public int getColumnCount(){
-        return 2;
+        return 3;
     }
 
     @Override
@@ -46,6 +89,7 @@ public class CorrelationTableModel extends AbstractTableModel {
         switch (i){
             case 0 : { return "Correlation file name";}
             case 1 : {return "";}
+            case 2 : {return "Correlations";}
         }
         return null;
     }
@@ -55,6 +99,7 @@ public class CorrelationTableModel extends AbstractTableModel {
         switch (i) {
             case 0 : {return String.class;}
             case 1 : {return Boolean.class;}
+            case 2 : {return Integer.class;}
         }
         return null;
     }
@@ -69,6 +114,7 @@ public class CorrelationTableModel extends AbstractTableModel {
         switch (i1) {
             case 0 : {return filename.get(i);}
             case 1 : {return filenameCheck.get(i);}
+            case 2 : {return correlationsCount.get(filename.get(i));}
         }
         return null;
     }
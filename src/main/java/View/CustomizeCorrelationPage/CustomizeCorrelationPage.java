@@ -275,7 +275,7 @@ public class CustomizeCorrelationPage extends JFrame {
                 panel4.setLayout(new BorderLayout(5, 5));
 
                 //---- label1 ----
-                label1.setText(".json");
+                label1.setText(".odg");
                 panel4.add(label1, BorderLayout.EAST);
 
                 //======== panel5 ========
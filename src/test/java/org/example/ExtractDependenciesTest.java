@@ -0,0 +1,103 @@
+package org.example;
+
+import Entity.DependencyGraph;
+import Entity.GraphBinaryFormat;
+import Services.Dependencies.ExtractDependencies;
+import Services.Synthetic.SyntheticHarGenerator;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Parallel dependency analysis: the graph built with several threads is saved byte for byte
+ * as the one built sequentially.
+ */
+public class ExtractDependenciesTest
+    extends TestCase
+{
+    private static final String HAR = "example/gui tests/hars/create_and_delete_room.har";
+    private static final int PARALLELISM = 4;
+
+    private File out_dir;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ExtractDependenciesTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( ExtractDependenciesTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        out_dir = Files.createTempDirectory( "extract-dependencies" ).toFile();
+    }
+
+    protected void tearDown()
+    {
+        File[] files = out_dir.listFiles();
+        if ( files != null )
+        {
+            for ( File file : files )
+            {
+                file.delete();
+            }
+        }
+        out_dir.delete();
+    }
+
+    // the graph of a HAR analyzed with the given parallelism, as saved in the binary format
+    private byte[] graphBytes( File har, int parallelism ) throws Exception
+    {
+        ExtractDependencies extractDependencies = new ExtractDependencies( har );
+        extractDependencies.setParallelism( parallelism );
+        extractDependencies.analyze_responses();
+        DependencyGraph dependencyGraph = extractDependencies.build_dependencies_graph();
+        File file = new File( out_dir, "graph" + parallelism + GraphBinaryFormat.EXTENSION );
+        GraphBinaryFormat.write( dependencyGraph, file );
+        return Files.readAllBytes( file.toPath() );
+    }
+
+    private void assertSameGraph( File har ) throws Exception
+    {
+        byte[] sequential = graphBytes( har, 1 );
+        byte[] parallel = graphBytes( har, PARALLELISM );
+        assertTrue( har.getName(), Arrays.equals( sequential, parallel ) );
+    }
+
+    /**
+     * The example HAR gives the same graph with 1 and 4 threads
+     */
+    public void testExampleHarParallelGraphMatchesSequential() throws Exception
+    {
+        assertSameGraph( new File( HAR ) );
+    }
+
+    /**
+     * A synthetic HAR with collisions, noise, forms and WebSocket messages gives the same graph
+     * with 1 and 4 threads
+     */
+    public void testSyntheticHarParallelGraphMatchesSequential() throws Exception
+    {
+        SyntheticHarGenerator generator = new SyntheticHarGenerator( 42 );
+        generator.setEntries( 80 );
+        generator.setWebSocketRate( 0.1 );
+        File har = new File( out_dir, "synthetic.har" );
+        generator.write( har );
+        assertSameGraph( har );
+    }
+}
@@ -0,0 +1,181 @@
+package org.example;
+
+import Entity.DependencyGraph;
+import Entity.Edge;
+import Entity.GraphBinaryFormat;
+import Entity.MyNode;
+import Entity.SavedGraphView;
+import Services.Dependencies.ExtractDependencies;
+import com.google.gson.Gson;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary graph files: a graph written with {@link GraphBinaryFormat} reads back, eagerly and
+ * through a {@link SavedGraphView}, equal to the same graph saved and loaded as JSON.
+ */
+public class GraphBinaryFormatTest
+    extends TestCase
+{
+    private static final String HAR = "example/gui tests/hars/create_and_delete_room.har";
+
+    private final Gson gson = new Gson();
+    private File out_dir;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public GraphBinaryFormatTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( GraphBinaryFormatTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        out_dir = Files.createTempDirectory( "graph-binary-format" ).toFile();
+    }
+
+    protected void tearDown()
+    {
+        File[] files = out_dir.listFiles();
+        if ( files != null )
+        {
+            for ( File file : files )
+            {
+                file.delete();
+            }
+        }
+        out_dir.delete();
+    }
+
+    private static DependencyGraph sampleGraph() throws Exception
+    {
+        ExtractDependencies extractDependencies = new ExtractDependencies( new File( HAR ) );
+        extractDependencies.analyze_responses();
+        return extractDependencies.build_dependencies_graph();
+    }
+
+    private DependencyGraph loadJson( DependencyGraph dependencyGraph ) throws Exception
+    {
+        File file = new File( out_dir, "graph.json" );
+        Files.write( file.toPath(), gson.toJson( dependencyGraph ).getBytes( UTF_8 ) );
+        return DependencyGraph.parseGraphByFile( file );
+    }
+
+    private File writeBinary( DependencyGraph dependencyGraph ) throws Exception
+    {
+        File file = new File( out_dir, "graph" + GraphBinaryFormat.EXTENSION );
+        GraphBinaryFormat.write( dependencyGraph, file );
+        return file;
+    }
+
+    // reads the binary file back in every way and compares it with the JSON load
+    private void assertRoundTrip( DependencyGraph dependencyGraph ) throws Exception
+    {
+        DependencyGraph json = loadJson( dependencyGraph );
+        File file = writeBinary( dependencyGraph );
+        assertTrue( GraphBinaryFormat.isBinary( file ) );
+
+        DependencyGraph binary = GraphBinaryFormat.read( file );
+        assertEquals( json.nodes.size(), binary.nodes.size() );
+        assertEquals( json.edges.size(), binary.edges.size() );
+        assertEquals( gson.toJson( json ), gson.toJson( binary ) );
+        assertEquals( gson.toJson( json ), gson.toJson( DependencyGraph.parseGraphByFile( file ) ) );
+        assertEquals( json.edges.size(), SavedGraphView.readEdgeCount( file ) );
+
+        try ( SavedGraphView view = SavedGraphView.open( file ) )
+        {
+            assertEquals( json.nodes.size(), view.getNodeCount() );
+            assertEquals( json.edges.size(), view.getEdgeCount() );
+            for ( int i = 0; i < view.getNodeCount(); i++ )
+            {
+                assertEquals( json.nodes.get( i ).getRequest().getMethod(), view.getNodeMethod( i ) );
+                assertEquals( json.nodes.get( i ).getRequest().getUrl(), view.getNodeUrl( i ) );
+            }
+            // out of order access before the whole graph is decoded
+            if ( view.getEdgeCount() > 0 )
+            {
+                assertEquals( gson.toJson( json.edges.get( view.getEdgeCount() - 1 ) ),
+                        gson.toJson( view.getEdge( view.getEdgeCount() - 1 ) ) );
+            }
+            assertEquals( gson.toJson( json.nodes ), gson.toJson( view.getNodes() ) );
+            assertEquals( gson.toJson( json.edges ), gson.toJson( view.getEdges() ) );
+            assertEquals( gson.toJson( json ), gson.toJson( view.toDependencyGraph() ) );
+        }
+    }
+
+    /**
+     * The graph of a sample HAR reads back equal to its JSON load
+     */
+    public void testSampleGraphRoundTrip() throws Exception
+    {
+        DependencyGraph dependencyGraph = sampleGraph();
+        assertFalse( dependencyGraph.edges.isEmpty() );
+        assertRoundTrip( dependencyGraph );
+    }
+
+    /**
+     * Edge endpoints are read as the nodes of the graph, not as copies
+     */
+    public void testEdgesShareGraphNodes() throws Exception
+    {
+        DependencyGraph binary = GraphBinaryFormat.read( writeBinary( sampleGraph() ) );
+        for ( Edge edge : binary.edges )
+        {
+            boolean shared = false;
+            for ( MyNode node : binary.nodes )
+            {
+                shared |= node == edge.to;
+            }
+            assertTrue( edge.toString(), shared );
+        }
+    }
+
+    /**
+     * A graph without nodes and edges
+     */
+    public void testEmptyGraphRoundTrip() throws Exception
+    {
+        assertRoundTrip( new DependencyGraph() );
+        try ( SavedGraphView view = SavedGraphView.open( writeBinary( new DependencyGraph() ) ) )
+        {
+            assertEquals( 0, view.getNodeCount() );
+            assertEquals( 0, view.getEdgeCount() );
+            assertTrue( view.getEdges().isEmpty() );
+        }
+    }
+
+    /**
+     * Nodes listed twice, as the same object or as equal copies, keep their positions
+     */
+    public void testDuplicateNodesRoundTrip() throws Exception
+    {
+        DependencyGraph dependencyGraph = sampleGraph();
+        MyNode node = dependencyGraph.nodes.get( 0 );
+        dependencyGraph.nodes.add( node );
+        dependencyGraph.nodes.add( gson.fromJson( gson.toJson( node ), MyNode.class ) );
+        assertRoundTrip( dependencyGraph );
+
+        DependencyGraph binary = GraphBinaryFormat.read( writeBinary( dependencyGraph ) );
+        int size = binary.nodes.size();
+        assertEquals( dependencyGraph.nodes.size(), size );
+        assertEquals( binary.nodes.get( 0 ), binary.nodes.get( size - 2 ) );
+        assertEquals( binary.nodes.get( 0 ), binary.nodes.get( size - 1 ) );
+    }
+}
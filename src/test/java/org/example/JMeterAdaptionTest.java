@@ -0,0 +1,163 @@
+package org.example;
+
+import Entity.DependencyGraph;
+import Properties.Paths;
+import Services.CorrelationsView.ScriptGeneration.JMeterAdaption;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Script generation: the adapted script is the one saved with the example graph, and scripts
+ * adapted at the same time are equal to the ones adapted one after the other.
+ */
+public class JMeterAdaptionTest
+    extends TestCase
+{
+    private static final int RUNS = 8;
+    private static final String SCRIPT = "src/data/scripts_saved/guest_book_reservation.jmx";
+    private static final String GRAPH = "src/data/dependencies_saved/guest_book_reservation-sergio.json";
+    private static final String SAVED = "src/data/scripts_saved/guest_book_reservation-sergio.jmx";
+
+    private String scripts_saved_path;
+    private File out_dir;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public JMeterAdaptionTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( JMeterAdaptionTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        scripts_saved_path = Paths.scripts_saved_path;
+        out_dir = Files.createTempDirectory( "jmeter-adaption" ).toFile();
+        Paths.scripts_saved_path = out_dir.getPath();
+    }
+
+    protected void tearDown()
+    {
+        Paths.scripts_saved_path = scripts_saved_path;
+        File[] files = out_dir.listFiles();
+        if ( files != null )
+        {
+            for ( File file : files )
+            {
+                file.delete();
+            }
+        }
+        out_dir.delete();
+    }
+
+    private byte[] adapt( String name ) throws Exception
+    {
+        DependencyGraph dependencyGraph = DependencyGraph.parseGraphByFile( new File( GRAPH ) );
+        JMeterAdaption.runJMeterAdaption( dependencyGraph, SCRIPT, name + ".har" );
+        return Files.readAllBytes( new File( out_dir, name + ".jmx" ).toPath() );
+    }
+
+    // element names, sorted attributes and non blank text of a JMX, one node per line
+    private static String normalize( File file ) throws Exception
+    {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setCoalescing( true );
+        return normalize( factory.newDocumentBuilder().parse( file ).getDocumentElement(), "", new StringBuilder() ).toString();
+    }
+
+    private static StringBuilder normalize( Node node, String indent, StringBuilder out )
+    {
+        if ( node.getNodeType() == Node.ELEMENT_NODE )
+        {
+            Map<String, String> attributes = new TreeMap<>();
+            NamedNodeMap map = node.getAttributes();
+            for ( int i = 0; i < map.getLength(); i++ )
+            {
+                attributes.put( map.item( i ).getNodeName(), map.item( i ).getNodeValue() );
+            }
+            out.append( indent ).append( '<' ).append( node.getNodeName() ).append( attributes ).append( '\n' );
+            for ( Node child = node.getFirstChild(); child != null; child = child.getNextSibling() )
+            {
+                normalize( child, indent + " ", out );
+            }
+        }
+        else if ( ( node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE )
+                && !node.getNodeValue().trim().isEmpty() )
+        {
+            out.append( indent ).append( node.getNodeValue() ).append( '\n' );
+        }
+        return out;
+    }
+
+    /**
+     * The example script adapted with its graph is the saved one, up to formatting
+     */
+    public void testAdaptedScriptMatchesSavedScript() throws Exception
+    {
+        adapt( "adapted" );
+        assertEquals( normalize( new File( SAVED ) ), normalize( new File( out_dir, "adapted.jmx" ) ) );
+    }
+
+    /**
+     * N concurrent runs produce the same scripts as N sequential runs
+     */
+    public void testConcurrentRunsMatchSequentialRuns() throws Exception
+    {
+        List<byte[]> sequential = new ArrayList<>();
+        for ( int i = 0; i < RUNS; i++ )
+        {
+            sequential.add( adapt( "sequential" + i ) );
+        }
+        for ( int i = 1; i < RUNS; i++ )
+        {
+            assertTrue( "sequential run " + i, Arrays.equals( sequential.get( 0 ), sequential.get( i ) ) );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( RUNS );
+        try
+        {
+            List<Callable<byte[]>> tasks = new ArrayList<>();
+            for ( int i = 0; i < RUNS; i++ )
+            {
+                String name = "concurrent" + i;
+                tasks.add( () -> adapt( name ) );
+            }
+            int i = 0;
+            for ( Future<byte[]> concurrent : executor.invokeAll( tasks ) )
+            {
+                assertTrue( "concurrent run " + i, Arrays.equals( sequential.get( i ), concurrent.get() ) );
+                i++;
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import Services.ResponseAnalyzer.JsonSchemaGenerator;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Schema generation: the schemas are the ones returned by the Node.js generator
+ * ({@code schema_generator/services/schema-services.js}) for the same bodies.
+ *
+ * <p>Each {@code NAME.json} of {@link #SCHEMAS} is a response body, {@code NAME.schema} the
+ * string the Node.js generator returned for it.
+ */
+public class JsonSchemaGeneratorTest
+    extends TestCase
+{
+    private static final String SCHEMAS = "src/test/resources/schemas";
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public JsonSchemaGeneratorTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( JsonSchemaGeneratorTest.class );
+    }
+
+    protected void setUp()
+    {
+        JsonSchemaGenerator.clearCache();
+    }
+
+    private static List<String> names()
+    {
+        List<String> names = new ArrayList<>();
+        String[] files = new File( SCHEMAS ).list();
+        assertNotNull( files );
+        Arrays.sort( files );
+        for ( String file : files )
+        {
+            if ( file.endsWith( ".json" ) )
+            {
+                names.add( file.substring( 0, file.length() - ".json".length() ) );
+            }
+        }
+        assertFalse( names.isEmpty() );
+        return names;
+    }
+
+    private static String read( String name ) throws Exception
+    {
+        return new String( Files.readAllBytes( new File( SCHEMAS, name ).toPath() ), UTF_8 ).trim();
+    }
+
+    /**
+     * Each body gives the schema of the Node.js generator
+     */
+    public void testSchemasMatchNodeGenerator() throws Exception
+    {
+        for ( String name : names() )
+        {
+            assertEquals( name, read( name + ".schema" ), JsonSchemaGenerator.generateJSONSchema( read( name + ".json" ) ) );
+        }
+    }
+
+    /**
+     * Schemas answered from the cache and generated for a list are the same
+     */
+    public void testCachedAndListSchemasMatchNodeGenerator() throws Exception
+    {
+        List<String> bodies = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for ( String name : names() )
+        {
+            bodies.add( read( name + ".json" ) );
+            expected.add( read( name + ".schema" ) );
+        }
+        bodies.addAll( bodies );
+        expected.addAll( expected );
+        assertEquals( expected, JsonSchemaGenerator.generateJSONSchemas( bodies ) );
+        assertEquals( expected, JsonSchemaGenerator.generateJSONSchemas( bodies ) );
+        assertTrue( JsonSchemaGenerator.getCacheHits() > 0 );
+    }
+}
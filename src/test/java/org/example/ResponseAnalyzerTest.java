@@ -0,0 +1,237 @@
+package org.example;
+
+import Services.ResponseAnalyzer.AtomicObject;
+import Services.ResponseAnalyzer.ResponseAnalyzer;
+import Services.ResponseAnalyzer.StructuredObject;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response analysis: the objects read from the flattened response tree are the ones the
+ * analysis built from the Gson tree before, with the same names, values and xpaths.
+ */
+public class ResponseAnalyzerTest
+    extends TestCase
+{
+    private static final String[] RESPONSES = {
+        "{\"id\":1,\"name\":\"room\",\"free\":true,\"owner\":null}",
+        "{\"a\":{\"b\":{\"c\":[1,2,{\"d\":\"x\"}]}},\"e\":[]}",
+        "{\"matrix\":[[1,2],[3,[4,5]],[],{\"k\":[[\"deep\"]]}],\"objects\":[{},{\"x\":{}}]}",
+        "{\"empty\":{},\"list\":[],\"nested\":{\"empty\":{},\"list\":[{}]},\"nulls\":[null,1,null]}",
+        "{\"int\":0,\"negative\":-12,\"float\":1.50,\"exp\":1e5,\"big\":123456789012345678901234567890,"
+            + "\"small\":-2.5E-3,\"in_array\":[0.0,-0,10]}",
+        "{\"quote\":\"a\\\"b\",\"backslash\":\"c:\\\\dir\",\"controls\":\"line\\nnext\\ttab\\r\","
+            + "\"unicode\":\"caf\\u00e9 \\u2028 \\ud83d\\ude00\",\"html\":\"<a href='x'>&amp;</a> = \\u003c\","
+            + "\"slash\":\"a\\/b\",\"key \\\"quoted\\\"\":\"v\"}",
+        "[{\"id\":\"1\"},{\"id\":\"2\",\"tags\":[\"a\",\"b\"]},3,\"four\",[5],null]",
+        "[]",
+        "{}",
+        "not a json body",
+    };
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public ResponseAnalyzerTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( ResponseAnalyzerTest.class );
+    }
+
+    /**
+     * Each response gives the objects of the Gson tree analysis
+     */
+    public void testObjectsMatchGsonTreeAnalysis()
+    {
+        for ( String response : RESPONSES )
+        {
+            List<Expected> expected = GsonTreeAnalysis.analyze( response );
+            List<Object> actual = new ResponseAnalyzer().getUnstructuredResponse( response ).getObjects();
+            assertSameObjects( response, expected, actual );
+        }
+    }
+
+    /**
+     * Structured values read children first, last object first, are the ones of the Gson tree
+     * analysis too
+     */
+    public void testValuesReadChildrenFirst()
+    {
+        for ( String response : RESPONSES )
+        {
+            List<Object> objects = new ResponseAnalyzer().getUnstructuredResponse( response ).getObjects();
+            assertEquals( response, expectedValues( GsonTreeAnalysis.analyze( response ), new ArrayList<>() ),
+                    values( objects, new ArrayList<>() ) );
+        }
+    }
+
+    private static List<String> values( List<Object> objects, List<String> out )
+    {
+        for ( int i = objects.size() - 1; i >= 0; i-- )
+        {
+            Object o = objects.get( i );
+            if ( o instanceof StructuredObject )
+            {
+                values( ( (StructuredObject) o ).getObjects(), out );
+                out.add( ( (StructuredObject) o ).getValue() );
+            }
+        }
+        return out;
+    }
+
+    private static List<String> expectedValues( List<Expected> objects, List<String> out )
+    {
+        for ( int i = objects.size() - 1; i >= 0; i-- )
+        {
+            Expected e = objects.get( i );
+            if ( e.objects != null )
+            {
+                expectedValues( e.objects, out );
+                out.add( e.value );
+            }
+        }
+        return out;
+    }
+
+    private static void assertSameObjects( String path, List<Expected> expected, List<Object> actual )
+    {
+        assertEquals( path + " size", expected.size(), actual.size() );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            Expected e = expected.get( i );
+            Object a = actual.get( i );
+            String at = path + " [" + i + "]";
+            if ( e.objects == null )
+            {
+                assertEquals( at + " class", AtomicObject.class, a.getClass() );
+                AtomicObject aa = (AtomicObject) a;
+                assertEquals( at + " name", e.name, aa.getName() );
+                assertEquals( at + " value", e.value, aa.getValue() );
+                assertEquals( at + " xpath", e.xpath, aa.getXpath() );
+                assertFalse( at + " set-cookie", aa.getFromSetCookie() );
+            }
+            else
+            {
+                assertEquals( at + " class", StructuredObject.class, a.getClass() );
+                StructuredObject as = (StructuredObject) a;
+                assertEquals( at + " name", e.name, as.getName() );
+                assertEquals( at + " value", e.value, as.getValue() );
+                assertEquals( at + " xpath", e.xpath, as.getXpath() );
+                assertSameObjects( at + " " + e.xpath, e.objects, as.getObjects() );
+            }
+        }
+    }
+
+    /**
+     * An object of the Gson tree analysis: atomic objects have no children list.
+     */
+    private static final class Expected
+    {
+        final String name;
+        final String value;
+        final String xpath;
+        final List<Expected> objects;
+
+        Expected( String name, String value, String xpath, boolean structured )
+        {
+            this.name = name;
+            this.value = value;
+            this.xpath = xpath;
+            this.objects = structured ? new ArrayList<>() : null;
+        }
+    }
+
+    /**
+     * The analysis of a response on the Gson tree, as {@link ResponseAnalyzer} did before the
+     * flattened response tree.
+     */
+    private static final class GsonTreeAnalysis
+    {
+        static List<Expected> analyze( String json_response )
+        {
+            List<Expected> objects = new ArrayList<>();
+            objects.add( new Expected( "All", json_response, "$", true ) );
+            if ( json_response.startsWith( "{" ) )
+            {
+                visitNode( JsonParser.parseString( json_response ).getAsJsonObject(), "$", objects );
+            }
+            else if ( json_response.startsWith( "[" ) )
+            {
+                visitNode( JsonParser.parseString( json_response ).getAsJsonArray(), "$", objects );
+            }
+            return objects;
+        }
+
+        private static void visitNode( JsonElement element, String xPath, List<Expected> objectList )
+        {
+            if ( element.isJsonObject() )
+            {
+                JsonObject node = element.getAsJsonObject();
+                for ( String key : node.keySet() )
+                {
+                    JsonElement value = node.get( key );
+                    String path = String.format( "%s.%s", xPath, key );
+                    if ( value.isJsonPrimitive() )
+                    {
+                        objectList.add( new Expected( key, value.getAsString(), path, false ) );
+                    }
+                    else if ( value.isJsonObject() )
+                    {
+                        Expected structuredObject = new Expected( key, value.toString(), path, true );
+                        objectList.add( structuredObject );
+                        visitNode( value, path, structuredObject.objects );
+                    }
+                    else if ( value.isJsonArray() )
+                    {
+                        Expected structuredObject = new Expected( key, value.toString(), path, true );
+                        objectList.add( structuredObject );
+                        iterateJSONArray( value.getAsJsonArray(), path, key, structuredObject.objects );
+                    }
+                }
+            }
+            else if ( element.isJsonArray() )
+            {
+                Expected structuredObject = new Expected( "", element.toString(), xPath, true );
+                objectList.add( structuredObject );
+                iterateJSONArray( element.getAsJsonArray(), xPath, "", structuredObject.objects );
+            }
+        }
+
+        private static void iterateJSONArray( JsonArray jsonArray, String xPath, String varName, List<Expected> objectsList )
+        {
+            int id = 0;
+            for ( JsonElement element : jsonArray )
+            {
+                if ( element.isJsonPrimitive() )
+                {
+                    objectsList.add( new Expected( varName, element.getAsString(), String.format( "%s.%s[%d]", xPath, varName, id ), false ) );
+                }
+                else if ( element.isJsonObject() )
+                {
+                    String path = String.format( "%s[%d]", xPath, id );
+                    Expected structuredObject = new Expected( varName, element.toString(), path, true );
+                    objectsList.add( structuredObject );
+                    visitNode( element, path, structuredObject.objects );
+                }
+                id++;
+            }
+        }
+    }
+}